@@ -0,0 +1,93 @@
+package org.sikrip.vboeditor.engine;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the table driven {@link DbnChecksum} with the original bit at a time calculation over batches of
+ * 28 byte dbn payloads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DbnChecksumBenchmark {
+
+    private static final int PAYLOAD_SIZE = 28;
+
+    @Param({"1000000", "4000000"})
+    private int packets;
+
+    private byte[] payloads;
+
+    @Setup
+    public void setup() {
+        payloads = new byte[packets * PAYLOAD_SIZE];
+        new Random(42).nextBytes(payloads);
+
+        final DbnChecksum checksum = new DbnChecksum();
+        for (int offset = 0; offset < payloads.length; offset += PAYLOAD_SIZE) {
+            checksum.reset();
+            checksum.update(payloads, offset, PAYLOAD_SIZE);
+            if (checksum.getValue() != bitwiseChecksum(payloads, offset, PAYLOAD_SIZE)) {
+                throw new IllegalStateException("Checksum mismatch at offset " + offset);
+            }
+        }
+    }
+
+    @Benchmark
+    public long tableChecksum() {
+        final DbnChecksum checksum = new DbnChecksum();
+        long sum = 0;
+        for (int offset = 0; offset < payloads.length; offset += PAYLOAD_SIZE) {
+            checksum.reset();
+            checksum.update(payloads, offset, PAYLOAD_SIZE);
+            sum += checksum.getValue();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long bitwiseChecksum() {
+        long sum = 0;
+        for (int offset = 0; offset < payloads.length; offset += PAYLOAD_SIZE) {
+            sum += bitwiseChecksum(payloads, offset, PAYLOAD_SIZE);
+        }
+        return sum;
+    }
+
+    /**
+     * The original checksum calculation of DbnToVbo.
+     */
+    private static int bitwiseChecksum(byte[] data, int offset, int length) {
+        int crc = 0;
+        for (int i = offset; i < offset + length; i++) {
+            crc = crc ^ (data[i] * 256);
+            crc = crc % 65536;
+            for (int j = 8; j > 0; j--) {
+                if ((crc & 32768) == 32768) {
+                    crc = crc * 2;
+                    crc = (crc ^ 4132);
+                } else {
+                    crc = crc * 2;
+                }
+                crc = crc % 65536;
+            }
+        }
+        return crc & 0xffff;
+    }
+}
@@ -0,0 +1,85 @@
+package org.sikrip.vboeditor.engine;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Generates vbo files of a car lapping a circular track, used as benchmark input.
+ */
+final class SyntheticVboFile {
+
+    private static final String HEADER = "File created on 01/01/2016 @ 10:00\n" +
+            "\n" +
+            "[header]\n" +
+            "satellites\n" +
+            "time\n" +
+            "latitude\n" +
+            "longitude\n" +
+            "velocity kmh\n" +
+            "heading\n" +
+            "height\n" +
+            "yaw rate deg/s\n" +
+            "\n" +
+            "[comments]\n" +
+            "Generator: vbotools benchmarks\n" +
+            "\n" +
+            "[column names]\n" +
+            "sats time lat long velocity heading height yaw-calc\n" +
+            "[data]\n";
+    // the session starts at 10:00:00, sessions longer than 14 hours wrap around midnight
+    private static final long START_TIME_MILLIS = 10 * 3600 * 1000L;
+    private static final long DAY_MILLIS = 24 * 3600 * 1000L;
+    private static final double LAP_MILLIS = 90000;
+    // in minutes, as vbo coordinates
+    private static final double TRACK_RADIUS = 0.5;
+
+    private SyntheticVboFile() {/*hidden*/}
+
+    /**
+     * Creates a vbo file in the given directory.
+     *
+     * @param directory       the directory of the file
+     * @param rateHz          the samples per second
+     * @param durationMinutes the duration of the session
+     * @return the created file
+     */
+    static File create(File directory, int rateHz, int durationMinutes) throws IOException {
+        final File vboFile = new File(directory, String.format("synthetic-%dhz-%dmin.vbo", rateHz, durationMinutes));
+        final long samples = (long) durationMinutes * 60 * rateHz;
+        final long intervalMillis = 1000 / rateHz;
+        try (VboLineWriter writer = new VboLineWriter(FileChannel.open(vboFile.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE))) {
+            writer.write(HEADER);
+            for (long sample = 0; sample < samples; sample++) {
+                final long elapsedMillis = sample * intervalMillis;
+                final double angle = 2 * Math.PI * elapsedMillis / LAP_MILLIS;
+                final long time = (START_TIME_MILLIS + elapsedMillis) % DAY_MILLIS;
+
+                writer.writeInt(9, 3).write(' ');
+                writer.writeInt(time / 3600000, 2).writeInt(time / 60000 % 60, 2).writeInt(time / 1000 % 60, 2)
+                        .write('.').writeInt(time % 1000 / 10, 2).write(' ');
+                writeSigned(writer, Math.round((2279.16590 + TRACK_RADIUS * Math.sin(angle)) * 100000), 5, 5);
+                writer.write(' ');
+                writeSigned(writer, Math.round((-1401.66780 + TRACK_RADIUS * Math.cos(angle)) * 100000), 5, 5);
+                writer.write(' ');
+                writer.writeFixedPoint(Math.round((120 + 40 * Math.sin(3 * angle)) * 1000), 3, 3, 3).write(' ');
+                writer.writeFixedPoint(Math.round((Math.toDegrees(angle) % 360) * 100), 2, 3, 2).write(' ');
+                writeSigned(writer, Math.round((30 + 5 * Math.sin(angle)) * 100), 2, 4);
+                writer.write(' ');
+                writeSigned(writer, Math.round(20 * Math.cos(3 * angle) * 10), 1, 3);
+                writer.write('\n');
+            }
+        }
+        return vboFile;
+    }
+
+    private static void writeSigned(VboLineWriter writer, long unscaledValue, int scale, int integerDigits)
+            throws IOException {
+        if (unscaledValue >= 0) {
+            writer.write('+');
+        }
+        writer.writeFixedPoint(unscaledValue, scale, integerDigits, scale);
+    }
+}
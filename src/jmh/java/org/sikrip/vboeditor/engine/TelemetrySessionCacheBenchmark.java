@@ -0,0 +1,66 @@
+package org.sikrip.vboeditor.engine;
+
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sikrip.vboeditor.model.TelemetrySession;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loading a session from the cache compared to parsing its vbo file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "-Dvbotools.cache.disabled=true"})
+public class TelemetrySessionCacheBenchmark {
+
+    @Param({"10", "20"})
+    private int rateHz;
+
+    @Param({"60", "1440"})
+    private int durationMinutes;
+
+    private File workDir;
+    private String vboFilePath;
+    private TelemetrySessionCache cache;
+
+    @Setup
+    public void setup() throws IOException {
+        workDir = Files.createTempDirectory("vbotools-jmh").toFile();
+        vboFilePath = SyntheticVboFile.create(workDir, rateHz, durationMinutes).getPath();
+        cache = new TelemetrySessionCache(new File(workDir, "cache"), Long.MAX_VALUE);
+        cache.put(vboFilePath, VboEditor.getTelemetrySession(vboFilePath));
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(workDir);
+    }
+
+    @Benchmark
+    public TelemetrySession parse() throws IOException {
+        return VboEditor.getTelemetrySession(vboFilePath);
+    }
+
+    @Benchmark
+    public TelemetrySession cacheHit() throws IOException {
+        return cache.get(vboFilePath);
+    }
+}
@@ -0,0 +1,70 @@
+package org.sikrip.vboeditor.engine;
+
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversions and video integration of synthetic vbo sessions, every invocation writes its output file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class VboConversionBenchmark {
+
+    @Param({"1", "5", "10", "20"})
+    private int rateHz;
+
+    @Param({"1", "60", "1440"})
+    private int durationMinutes;
+
+    private File workDir;
+    private String vboFilePath;
+    private String dbnFilePath;
+
+    @Setup
+    public void setup() throws IOException {
+        workDir = Files.createTempDirectory("vbotools-jmh").toFile();
+        vboFilePath = SyntheticVboFile.create(workDir, rateHz, durationMinutes).getPath();
+        dbnFilePath = new File(workDir, "session.dbn").getPath();
+        VboToDbn.convert(vboFilePath, dbnFilePath);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(workDir);
+    }
+
+    @Benchmark
+    public void dbnToVbo() {
+        DbnToVbo.convert(dbnFilePath, new File(workDir, "converted.vbo").getPath());
+    }
+
+    @Benchmark
+    public void vboToDbn() {
+        VboToDbn.convert(vboFilePath, new File(workDir, "converted.dbn").getPath());
+    }
+
+    @Benchmark
+    public void createVboWithVideoMetadata() throws IOException {
+        VboEditor.createVboWithVideoMetadata(workDir.getPath(), vboFilePath, VboEditor.VideoType.MP4, "session", -2020);
+    }
+}
@@ -0,0 +1,88 @@
+package org.sikrip.vboeditor.engine;
+
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sikrip.vboeditor.model.TraveledRouteCoordinate;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.sikrip.vboeditor.engine.VboUtils.DATA_SECTION;
+import static org.sikrip.vboeditor.engine.VboUtils.HEADER_SECTION;
+
+/**
+ * Reading and parsing of synthetic vbo sessions.
+ * <p>
+ * The session cache is disabled so that every invocation parses the vbo file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "-Dvbotools.cache.disabled=true"})
+public class VboParsingBenchmark {
+
+    @Param({"1", "5", "10", "20"})
+    private int rateHz;
+
+    @Param({"1", "60", "1440"})
+    private int durationMinutes;
+
+    private File workDir;
+    private String vboFilePath;
+    private Map<String, List<String>> vboSections;
+    private String dataSeparator;
+    private int timeIdx;
+    private int speedIdx;
+
+    @Setup
+    public void setup() throws IOException {
+        workDir = Files.createTempDirectory("vbotools-jmh").toFile();
+        vboFilePath = SyntheticVboFile.create(workDir, rateHz, durationMinutes).getPath();
+        vboSections = VboIOUtils.readVboSections(vboFilePath);
+        dataSeparator = VboUtils.getDataSeparator(vboSections);
+        timeIdx = vboSections.get(HEADER_SECTION).indexOf("time");
+        speedIdx = vboSections.get(HEADER_SECTION).indexOf("velocity kmh");
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(workDir);
+    }
+
+    @Benchmark
+    public Map<String, List<String>> readVboSections() throws IOException {
+        return VboIOUtils.readVboSections(vboFilePath);
+    }
+
+    @Benchmark
+    public List<TraveledRouteCoordinate> getTraveledRoute() throws IOException {
+        return VboEditor.getTraveledRoute(vboFilePath);
+    }
+
+    @Benchmark
+    public List<String> getDataLines() {
+        return VboUtils.getDataLines(vboSections, dataSeparator, -1, -1);
+    }
+
+    @Benchmark
+    public List<Double> getAccelerationData() {
+        return VboUtils.getAccelerationData(vboSections.get(DATA_SECTION), dataSeparator, timeIdx, speedIdx);
+    }
+}
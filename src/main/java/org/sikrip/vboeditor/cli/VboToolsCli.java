@@ -0,0 +1,464 @@
+package org.sikrip.vboeditor.cli;
+
+import org.sikrip.vboeditor.engine.BatchConverter;
+import org.sikrip.vboeditor.engine.DbnToVbo;
+import org.sikrip.vboeditor.engine.SyncOffsetEstimator;
+import org.sikrip.vboeditor.engine.VboEditor;
+import org.sikrip.vboeditor.engine.VboToDbn;
+import org.sikrip.vboeditor.model.TelemetrySession;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Headless command line entry point of the vbo tools.
+ * <p>
+ * Only the engine is used, so no AWT or JavaFX class is loaded and no network call is made (e.g. the version check
+ * of the gui application).
+ */
+public final class VboToolsCli {
+
+    static final int EXIT_OK = 0;
+    static final int EXIT_FAILED = 1;
+    static final int EXIT_USAGE = 2;
+
+    private static final String USAGE = "Usage: java -cp vbotools-none-jar-with-dependencies.jar " + VboToolsCli.class.getName() +
+            " <command> <arguments>\n" +
+            "Commands:\n" +
+            "  integrate <vbo file> <video file> <output directory> <session name> [--offset <millis>]\n" +
+            "            [--placement copy|hardlink|symlink|move]\n" +
+            "      creates the vbo file with video metadata and the video file of the session\n" +
+            "  metadata <vbo file> <output directory> <session name> --video-type mp4|avi [--offset <millis>]\n" +
+            "      creates only the vbo file with video metadata\n" +
+            "  video <video file> <output directory> <session name> [--placement copy|hardlink|symlink|move]\n" +
+            "      creates only the video file of the session\n" +
+            "  dbn2vbo <dbn file> <vbo file>\n" +
+            "  vbo2dbn <vbo file> <dbn file>\n" +
+            "  route <vbo file> [<csv file>]\n" +
+            "      writes the time (millis), latitude, longitude and speed (km/h) of every sample, to the\n" +
+            "      standard output when no file is given\n" +
+            "  batch dbn2vbo|vbo2dbn <directory or glob> [--output <directory>] [--threads <count>]\n" +
+            "      converts all the matching files, a directory selects all the files with the source extension\n" +
+            "  syncoffset <vbo file> <motion csv file> [--max-offset <millis>] [--profile speed|acceleration]\n" +
+            "             [--time-unit ms|s]\n" +
+            "      estimates the offset by correlating the telemetry with the motion of the video, the csv file\n" +
+            "      has the time since the start of the video (millis unless the time unit is s) and a motion value\n" +
+            "      of every video frame, after an optional header line\n" +
+            "The offset is the time (in millis) the gps data start after the video, negative if they start before.\n" +
+            "The video is copied unless another placement is given, it is copied anyway when it cannot be placed.";
+
+    private final PrintStream out;
+    private final PrintStream err;
+
+    VboToolsCli(PrintStream out, PrintStream err) {
+        this.out = out;
+        this.err = err;
+    }
+
+    public static void main(String[] args) {
+        System.exit(new VboToolsCli(System.out, System.err).run(args));
+    }
+
+    /**
+     * @return the exit code
+     */
+    int run(String[] args) {
+        if (args.length == 0 || "--help".equals(args[0]) || "-h".equals(args[0])) {
+            err.println(USAGE);
+            return args.length == 0 ? EXIT_USAGE : EXIT_OK;
+        }
+        try {
+            final Arguments arguments = new Arguments(args);
+            switch (arguments.command) {
+                case "integrate":
+                    return integrate(arguments);
+                case "metadata":
+                    return metadata(arguments);
+                case "video":
+                    return video(arguments);
+                case "dbn2vbo":
+                    return convert(arguments, BatchConverter.Conversion.DBN_TO_VBO);
+                case "vbo2dbn":
+                    return convert(arguments, BatchConverter.Conversion.VBO_TO_DBN);
+                case "route":
+                    return route(arguments);
+                case "batch":
+                    return batch(arguments);
+                case "syncoffset":
+                    return syncOffset(arguments);
+                default:
+                    throw new UsageException("Unknown command " + arguments.command);
+            }
+        } catch (UsageException e) {
+            err.println(e.getMessage());
+            err.println(USAGE);
+            return EXIT_USAGE;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            err.println("Interrupted");
+            return EXIT_FAILED;
+        } catch (Exception e) {
+            err.println("Error: " + describe(e));
+            return EXIT_FAILED;
+        }
+    }
+
+    private int integrate(Arguments arguments) throws IOException, InterruptedException {
+        final String vboFile = arguments.positional(0, "vbo file");
+        final String videoFile = arguments.positional(1, "video file");
+        final String outputDir = arguments.positional(2, "output directory");
+        final String sessionName = arguments.positional(3, "session name");
+        final int offset = arguments.intOption("--offset", 0);
+        final VboEditor.VideoPlacement placement = getVideoPlacement(arguments);
+        arguments.checkAllUsed();
+
+        VboEditor.createSessionFiles(outputDir, vboFile, videoFile, getVideoType(videoFile), sessionName, offset,
+                placement, null);
+        out.println("Created the vbo and video files under " + new File(outputDir, sessionName));
+        return EXIT_OK;
+    }
+
+    private int metadata(Arguments arguments) throws IOException {
+        final String vboFile = arguments.positional(0, "vbo file");
+        final String outputDir = arguments.positional(1, "output directory");
+        final String sessionName = arguments.positional(2, "session name");
+        final String videoType = arguments.option("--video-type", null);
+        if (videoType == null) {
+            throw new UsageException("Missing --video-type");
+        }
+        final int offset = arguments.intOption("--offset", 0);
+        arguments.checkAllUsed();
+
+        VboEditor.createVboWithVideoMetadata(outputDir, vboFile, getVideoType("." + videoType), sessionName, offset);
+        out.println("Created the vbo file under " + new File(outputDir, sessionName));
+        return EXIT_OK;
+    }
+
+    private int video(Arguments arguments) throws IOException {
+        final String videoFile = arguments.positional(0, "video file");
+        final String outputDir = arguments.positional(1, "output directory");
+        final String sessionName = arguments.positional(2, "session name");
+        final VboEditor.VideoPlacement placement = getVideoPlacement(arguments);
+        arguments.checkAllUsed();
+
+        VboEditor.createVideoFile(outputDir, videoFile, sessionName, placement, null);
+        out.println("Created the video file under " + new File(outputDir, sessionName));
+        return EXIT_OK;
+    }
+
+    private int convert(Arguments arguments, BatchConverter.Conversion conversion) {
+        final String sourceFile = arguments.positional(0, "source file");
+        final String targetFile = arguments.positional(1, "target file");
+        arguments.checkAllUsed();
+
+        if (conversion == BatchConverter.Conversion.DBN_TO_VBO) {
+            DbnToVbo.convert(sourceFile, targetFile);
+        } else {
+            VboToDbn.convert(sourceFile, targetFile);
+        }
+        out.println("Created " + targetFile);
+        return EXIT_OK;
+    }
+
+    private int route(Arguments arguments) throws IOException {
+        final String vboFile = arguments.positional(0, "vbo file");
+        final String csvFile = arguments.optionalPositional(1);
+        arguments.checkAllUsed();
+
+        final TelemetrySession session = VboEditor.getTelemetrySession(vboFile);
+        final OutputStream stream = csvFile != null ? new FileOutputStream(csvFile) : out;
+        final Writer writer = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.US_ASCII));
+        try {
+            writer.write("time,latitude,longitude,speed\n");
+            final StringBuilder line = new StringBuilder();
+            for (int i = 0; i < session.getSize(); i++) {
+                line.setLength(0);
+                line.append(session.getTime(i)).append(',').append(session.getLatitude(i)).append(',')
+                        .append(session.getLongitude(i)).append(',').append(session.getSpeed(i)).append('\n');
+                writer.append(line);
+            }
+        } finally {
+            if (csvFile != null) {
+                writer.close();
+            } else {
+                writer.flush();
+            }
+        }
+        return EXIT_OK;
+    }
+
+    private int syncOffset(Arguments arguments) throws IOException {
+        final String vboFile = arguments.positional(0, "vbo file");
+        final String motionFile = arguments.positional(1, "motion csv file");
+        final long maxOffset = arguments.intOption("--max-offset", Integer.MAX_VALUE);
+        final SyncOffsetEstimator.TelemetryProfile profile = parseProfile(arguments.option("--profile", "speed"));
+        final double millisPerTimeUnit = parseTimeUnit(arguments.option("--time-unit", "ms"));
+        arguments.checkAllUsed();
+        if (maxOffset < 0) {
+            throw new UsageException("Invalid max offset " + maxOffset);
+        }
+
+        final List<double[]> rows = readMotion(motionFile, millisPerTimeUnit);
+        final double[] times = new double[rows.size()];
+        final double[] motion = new double[rows.size()];
+        for (int i = 0; i < rows.size(); i++) {
+            times[i] = rows.get(i)[0];
+            motion[i] = rows.get(i)[1];
+        }
+
+        final SyncOffsetEstimator.Estimate estimate = new SyncOffsetEstimator(profile, maxOffset)
+                .estimate(VboEditor.getTelemetrySession(vboFile), times, motion);
+        out.println("Offset " + estimate);
+        return EXIT_OK;
+    }
+
+    /**
+     * Reads the time (in millis) and the motion value of every line, only the first non-empty line may be a header.
+     */
+    private static List<double[]> readMotion(String motionFile, double millisPerTimeUnit) throws IOException {
+        final List<double[]> rows = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(Paths.get(motionFile), StandardCharsets.US_ASCII)) {
+            String line;
+            int lineNumber = 0;
+            boolean first = true;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                final String trimmed = line.trim();
+                if (trimmed.isEmpty()) {
+                    continue;
+                }
+                final String[] fields = trimmed.split(",");
+                final double[] row = new double[2];
+                try {
+                    if (fields.length < 2) {
+                        throw new NumberFormatException("Missing motion value");
+                    }
+                    row[0] = Double.parseDouble(fields[0].trim()) * millisPerTimeUnit;
+                    row[1] = Double.parseDouble(fields[1].trim());
+                    if (!Double.isFinite(row[0]) || !Double.isFinite(row[1])) {
+                        throw new NumberFormatException("Not a finite number");
+                    }
+                } catch (NumberFormatException e) {
+                    if (first) {
+                        // the header
+                        first = false;
+                        continue;
+                    }
+                    throw new IOException("Invalid motion line " + lineNumber + ": " + line);
+                }
+                first = false;
+                if (!rows.isEmpty() && row[0] <= rows.get(rows.size() - 1)[0]) {
+                    throw new IOException("Motion times should increase, line " + lineNumber + ": " + line);
+                }
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+
+    private int batch(Arguments arguments) throws IOException, InterruptedException {
+        final BatchConverter.Conversion conversion = parseConversion(arguments.positional(0, "conversion"));
+        final String sources = arguments.positional(1, "directory or glob");
+        final String output = arguments.option("--output", null);
+        final int threads = arguments.intOption("--threads", BatchConverter.getDefaultParallelism());
+        arguments.checkAllUsed();
+        if (threads < 1) {
+            throw new UsageException("Invalid thread count " + threads);
+        }
+
+        final File outputDir = output != null ? new File(output) : null;
+        if (outputDir != null && !outputDir.isDirectory() && !outputDir.mkdirs()) {
+            throw new IOException("Cannot create output directory " + outputDir);
+        }
+        final List<File> sourceFiles = BatchConverter.findSourceFiles(sources, conversion);
+        if (sourceFiles.isEmpty()) {
+            err.println("No files found for " + sources);
+            return EXIT_FAILED;
+        }
+        final BatchConverter.Summary summary = new BatchConverter(conversion, threads)
+                .convert(sourceFiles, outputDir, (result, completed, total) -> {
+                    if (result.isSuccessful()) {
+                        out.printf(Locale.US, "[%d/%d] %s -> %s (%d ms)%n", completed, total,
+                                result.getSource(), result.getTarget(), result.getElapsedMillis());
+                    } else {
+                        out.printf(Locale.US, "[%d/%d] %s FAILED: %s%n", completed, total,
+                                result.getSource(), describe(result.getError()));
+                    }
+                });
+        out.printf(Locale.US, "Converted %d of %d files, %.1f MB in %.1f s (%.1f MB/s)%n",
+                summary.getConverted(), sourceFiles.size(), summary.getSourceBytes() / 1e6,
+                summary.getElapsedMillis() / 1000.0, summary.getBytesPerSecond() / 1e6);
+        for (BatchConverter.Result failure : summary.getFailures()) {
+            out.printf("Failed: %s (%s)%n", failure.getSource(), describe(failure.getError()));
+        }
+        return summary.getFailures().isEmpty() ? EXIT_OK : EXIT_FAILED;
+    }
+
+    private static SyncOffsetEstimator.TelemetryProfile parseProfile(String profile) {
+        switch (profile) {
+            case "speed":
+                return SyncOffsetEstimator.TelemetryProfile.SPEED;
+            case "acceleration":
+                return SyncOffsetEstimator.TelemetryProfile.ACCELERATION;
+            default:
+                throw new UsageException("Unknown profile " + profile);
+        }
+    }
+
+    private static double parseTimeUnit(String timeUnit) {
+        switch (timeUnit) {
+            case "ms":
+                return 1;
+            case "s":
+                return 1000;
+            default:
+                throw new UsageException("Unknown time unit " + timeUnit);
+        }
+    }
+
+    private static BatchConverter.Conversion parseConversion(String conversion) {
+        switch (conversion) {
+            case "dbn2vbo":
+                return BatchConverter.Conversion.DBN_TO_VBO;
+            case "vbo2dbn":
+                return BatchConverter.Conversion.VBO_TO_DBN;
+            default:
+                throw new UsageException("Unknown conversion " + conversion);
+        }
+    }
+
+    private static VboEditor.VideoType getVideoType(String videoFilePath) {
+        final String videoExtension = videoFilePath.substring(videoFilePath.lastIndexOf('.') + 1);
+        switch (videoExtension.toLowerCase(Locale.ROOT)) {
+            case "mp4":
+                return VboEditor.VideoType.MP4;
+            case "avi":
+                return VboEditor.VideoType.AVI;
+            default:
+                throw new UsageException(String.format("Video of type %s is not supported", videoExtension));
+        }
+    }
+
+    private static VboEditor.VideoPlacement getVideoPlacement(Arguments arguments) {
+        final String placement = arguments.option("--placement", "copy");
+        switch (placement) {
+            case "copy":
+                return VboEditor.VideoPlacement.COPY;
+            case "hardlink":
+                return VboEditor.VideoPlacement.HARD_LINK;
+            case "symlink":
+                return VboEditor.VideoPlacement.SYMBOLIC_LINK;
+            case "move":
+                return VboEditor.VideoPlacement.MOVE;
+            default:
+                throw new UsageException("Unknown placement " + placement);
+        }
+    }
+
+    /**
+     * @return the message of the root cause, engine errors are usually wrapped in runtime exceptions
+     */
+    private static String describe(Throwable error) {
+        Throwable cause = error;
+        while (cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause.getMessage() != null ? cause.getMessage() : cause.toString();
+    }
+
+    /**
+     * The arguments of a command, positional arguments and "--name value" options in any order.
+     */
+    private static final class Arguments {
+
+        private final String command;
+        private final List<String> positional = new ArrayList<>();
+        private final List<String> options = new ArrayList<>();
+        private int usedPositional;
+        private int usedOptions;
+
+        private Arguments(String[] args) {
+            command = args[0];
+            for (int i = 1; i < args.length; i++) {
+                if (args[i].startsWith("--")) {
+                    if (i + 1 >= args.length) {
+                        throw new UsageException("Missing value of " + args[i]);
+                    }
+                    options.add(args[i]);
+                    options.add(args[++i]);
+                } else {
+                    positional.add(args[i]);
+                }
+            }
+        }
+
+        private String positional(int idx, String name) {
+            final String value = optionalPositional(idx);
+            if (value == null) {
+                throw new UsageException("Missing " + name);
+            }
+            return value;
+        }
+
+        private String optionalPositional(int idx) {
+            if (idx >= positional.size()) {
+                return null;
+            }
+            usedPositional = Math.max(usedPositional, idx + 1);
+            return positional.get(idx);
+        }
+
+        private String option(String name, String defaultValue) {
+            for (int i = 0; i < options.size(); i += 2) {
+                if (options.get(i).equals(name)) {
+                    usedOptions++;
+                    return options.get(i + 1);
+                }
+            }
+            return defaultValue;
+        }
+
+        private int intOption(String name, int defaultValue) {
+            final String value = option(name, null);
+            if (value == null) {
+                return defaultValue;
+            }
+            try {
+                return Integer.parseInt(value);
+            } catch (NumberFormatException e) {
+                throw new UsageException("Invalid " + name + " " + value);
+            }
+        }
+
+        private void checkAllUsed() {
+            if (usedPositional < positional.size()) {
+                throw new UsageException("Unexpected argument " + positional.get(usedPositional));
+            }
+            if (usedOptions < options.size() / 2) {
+                throw new UsageException("Unknown or repeated option in " + options);
+            }
+        }
+    }
+
+    private static final class UsageException extends IllegalArgumentException {
+
+        private static final long serialVersionUID = 1L;
+
+        private UsageException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,283 @@
+package org.sikrip.vboeditor.engine;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Converts many dbn or vbo files concurrently on a bounded pool of worker threads.
+ * <p>
+ * A file that cannot be converted is reported as failed (and its partial output is deleted) without affecting the
+ * rest of the batch. The listener is notified on the thread that runs the batch, in completion order.
+ */
+public final class BatchConverter {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(BatchConverter.class);
+
+    public enum Conversion {
+        DBN_TO_VBO(".dbn", ".vbo"),
+        VBO_TO_DBN(".vbo", ".dbn");
+
+        private final String sourceExtension;
+        private final String targetExtension;
+
+        Conversion(String sourceExtension, String targetExtension) {
+            this.sourceExtension = sourceExtension;
+            this.targetExtension = targetExtension;
+        }
+
+        public String getSourceExtension() {
+            return sourceExtension;
+        }
+
+        public String getTargetExtension() {
+            return targetExtension;
+        }
+
+        void convert(String sourcePath, String targetPath) {
+            if (this == DBN_TO_VBO) {
+                DbnToVbo.convert(sourcePath, targetPath);
+            } else {
+                VboToDbn.convert(sourcePath, targetPath);
+            }
+        }
+    }
+
+    /**
+     * Receives the result of every file of the batch.
+     */
+    public interface Listener {
+
+        /**
+         * @param result    the result of the file
+         * @param completed the number of files completed so far, including this one
+         * @param total     the number of files of the batch
+         */
+        void fileCompleted(Result result, int completed, int total);
+    }
+
+    /**
+     * The outcome of the conversion of a single file.
+     */
+    public static final class Result {
+
+        private final File source;
+        private final File target;
+        private final Exception error;
+        private final long elapsedMillis;
+
+        private Result(File source, File target, Exception error, long elapsedMillis) {
+            this.source = source;
+            this.target = target;
+            this.error = error;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        public File getSource() {
+            return source;
+        }
+
+        public File getTarget() {
+            return target;
+        }
+
+        public boolean isSuccessful() {
+            return error == null;
+        }
+
+        /**
+         * @return the reason of the failure or null if the file was converted
+         */
+        public Exception getError() {
+            return error;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+    }
+
+    /**
+     * The totals of a batch.
+     */
+    public static final class Summary {
+
+        private final int converted;
+        private final List<Result> failures;
+        private final long sourceBytes;
+        private final long elapsedMillis;
+
+        private Summary(int converted, List<Result> failures, long sourceBytes, long elapsedMillis) {
+            this.converted = converted;
+            this.failures = Collections.unmodifiableList(failures);
+            this.sourceBytes = sourceBytes;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        public int getConverted() {
+            return converted;
+        }
+
+        public List<Result> getFailures() {
+            return failures;
+        }
+
+        /**
+         * @return the size of the files converted successfully
+         */
+        public long getSourceBytes() {
+            return sourceBytes;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+
+        /**
+         * @return the source bytes converted per second
+         */
+        public double getBytesPerSecond() {
+            return sourceBytes * 1000.0 / Math.max(elapsedMillis, 1);
+        }
+    }
+
+    private final Conversion conversion;
+    private final int parallelism;
+
+    /**
+     * @param conversion  the conversion to perform
+     * @param parallelism the maximum number of files converted concurrently
+     */
+    public BatchConverter(Conversion conversion, int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism should be at least 1, was " + parallelism);
+        }
+        this.conversion = conversion;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * @return the default parallelism, one file per available processor
+     */
+    public static int getDefaultParallelism() {
+        return Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Finds the files to convert.
+     *
+     * @param directoryOrGlob a directory (all the files with the source extension are selected), a single file or a
+     *                        glob for the file names of a directory (e.g. /logs/2016-*.dbn)
+     * @param conversion      the conversion to perform
+     * @return the matching files, sorted by path
+     * @throws IOException when the directory cannot be read
+     */
+    public static List<File> findSourceFiles(String directoryOrGlob, Conversion conversion) throws IOException {
+        final File file = new File(directoryOrGlob);
+        if (file.isFile()) {
+            return Collections.singletonList(file);
+        }
+        final Path directory;
+        final String glob;
+        if (file.isDirectory()) {
+            directory = file.toPath();
+            glob = "*" + conversion.getSourceExtension();
+        } else {
+            directory = file.getAbsoluteFile().getParentFile().toPath();
+            glob = file.getName();
+        }
+        final List<File> sourceFiles = new ArrayList<>();
+        try (DirectoryStream<Path> paths = Files.newDirectoryStream(directory, glob)) {
+            for (Path path : paths) {
+                if (Files.isRegularFile(path)) {
+                    sourceFiles.add(path.toFile());
+                }
+            }
+        }
+        Collections.sort(sourceFiles);
+        return sourceFiles;
+    }
+
+    /**
+     * Converts the given files, the output file of each source is named after it with the target extension
+     * appended (e.g. session.dbn to session.dbn.vbo).
+     *
+     * @param sourceFiles the files to convert
+     * @param outputDir   the directory of the converted files or null to write each one next to its source
+     * @param listener    notified for every file, may be null
+     * @return the totals of the batch
+     * @throws InterruptedException when the calling thread is interrupted, conversions in progress are interrupted
+     *                              too
+     */
+    public Summary convert(List<File> sourceFiles, File outputDir, Listener listener) throws InterruptedException {
+        final long start = System.currentTimeMillis();
+        int converted = 0;
+        long sourceBytes = 0;
+        final List<Result> failures = new ArrayList<>();
+        if (sourceFiles.isEmpty()) {
+            return new Summary(converted, failures, sourceBytes, 0);
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, sourceFiles.size()));
+        try {
+            final CompletionService<Result> completionService = new ExecutorCompletionService<>(executor);
+            for (File sourceFile : sourceFiles) {
+                final File targetDir = outputDir != null ? outputDir : sourceFile.getAbsoluteFile().getParentFile();
+                final File targetFile = new File(targetDir, sourceFile.getName() + conversion.getTargetExtension());
+                completionService.submit(new Callable<Result>() {
+                    @Override
+                    public Result call() {
+                        return convert(sourceFile, targetFile);
+                    }
+                });
+            }
+            for (int completed = 1; completed <= sourceFiles.size(); completed++) {
+                final Result result = completionService.take().get();
+                if (result.isSuccessful()) {
+                    converted++;
+                    sourceBytes += result.getSource().length();
+                } else {
+                    failures.add(result);
+                }
+                if (listener != null) {
+                    listener.fileCompleted(result, completed, sourceFiles.size());
+                }
+            }
+        } catch (ExecutionException e) {
+            // conversion errors are caught by the tasks
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        return new Summary(converted, failures, sourceBytes, System.currentTimeMillis() - start);
+    }
+
+    private Result convert(File sourceFile, File targetFile) {
+        final long start = System.currentTimeMillis();
+        try {
+            conversion.convert(sourceFile.getPath(), targetFile.getPath());
+            return new Result(sourceFile, targetFile, null, System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            LOGGER.warn("Could not convert {}: {}", sourceFile, e.toString());
+            LOGGER.debug("Conversion failure", e);
+            if (targetFile.exists() && !targetFile.delete()) {
+                LOGGER.warn("Could not delete partial output {}", targetFile);
+            }
+            return new Result(sourceFile, targetFile, e, System.currentTimeMillis() - start);
+        }
+    }
+}
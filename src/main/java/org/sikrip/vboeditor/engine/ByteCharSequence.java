@@ -0,0 +1,65 @@
+package org.sikrip.vboeditor.engine;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A reusable {@link CharSequence} window on the bytes of a {@link ByteBuffer}, each byte is one (latin-1) char.
+ * <p>
+ * It lets the {@link VboLineTokenizer} work on memory mapped data lines without decoding them to Strings.
+ */
+final class ByteCharSequence implements CharSequence {
+
+    private ByteBuffer buffer;
+    private int start;
+    private int end;
+
+    ByteCharSequence(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    /**
+     * Moves the window to the given absolute positions of the given buffer.
+     *
+     * @return this sequence
+     */
+    ByteCharSequence reset(ByteBuffer newBuffer, int start, int end) {
+        buffer = newBuffer;
+        return reset(start, end);
+    }
+
+    /**
+     * Moves the window to the given absolute positions of the buffer.
+     *
+     * @return this sequence
+     */
+    ByteCharSequence reset(int start, int end) {
+        this.start = start;
+        this.end = end;
+        return this;
+    }
+
+    @Override
+    public int length() {
+        return end - start;
+    }
+
+    @Override
+    public char charAt(int index) {
+        return (char) (buffer.get(start + index) & 0xFF);
+    }
+
+    @Override
+    public CharSequence subSequence(int subStart, int subEnd) {
+        return new ByteCharSequence(buffer).reset(start + subStart, start + subEnd);
+    }
+
+    @Override
+    public String toString() {
+        final byte[] bytes = new byte[length()];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get(start + i);
+        }
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+}
@@ -0,0 +1,65 @@
+package org.sikrip.vboeditor.engine;
+
+import java.nio.ByteBuffer;
+import java.util.zip.Checksum;
+
+/**
+ * The CRC-16 (polynomial 0x1024, initial value 0) of the dbn data packets, computed a byte at a time with a lookup
+ * table.
+ */
+public final class DbnChecksum implements Checksum {
+
+    private static final int POLYNOMIAL = 0x1024;
+    private static final int[] TABLE = new int[256];
+
+    static {
+        for (int i = 0; i < TABLE.length; i++) {
+            int crc = i << 8;
+            for (int j = 0; j < 8; j++) {
+                crc = (crc & 0x8000) != 0 ? (crc << 1) ^ POLYNOMIAL : crc << 1;
+            }
+            TABLE[i] = crc & 0xFFFF;
+        }
+    }
+
+    private int crc;
+
+    @Override
+    public void update(int b) {
+        crc = ((crc << 8) ^ TABLE[((crc >>> 8) ^ b) & 0xFF]) & 0xFFFF;
+    }
+
+    @Override
+    public void update(byte[] b, int off, int len) {
+        int value = crc;
+        for (int i = off; i < off + len; i++) {
+            value = ((value << 8) ^ TABLE[((value >>> 8) ^ b[i]) & 0xFF]) & 0xFFFF;
+        }
+        crc = value;
+    }
+
+    /**
+     * Updates the checksum with the given bytes of the buffer, the position of the buffer is not changed.
+     *
+     * @param buffer the buffer
+     * @param offset the absolute position of the first byte
+     * @param length the number of bytes
+     */
+    public void update(ByteBuffer buffer, int offset, int length) {
+        int value = crc;
+        for (int i = offset; i < offset + length; i++) {
+            value = ((value << 8) ^ TABLE[((value >>> 8) ^ buffer.get(i)) & 0xFF]) & 0xFFFF;
+        }
+        crc = value;
+    }
+
+    @Override
+    public long getValue() {
+        return crc;
+    }
+
+    @Override
+    public void reset() {
+        crc = 0;
+    }
+}
@@ -1,10 +1,13 @@
 package org.sikrip.vboeditor.engine;
 
-import java.io.*;
-import java.text.DecimalFormat;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.text.SimpleDateFormat;
 import java.util.Date;
-import java.util.Locale;
 
 /**
  * Converter from dbn file to vbo.
@@ -31,25 +34,18 @@ public class DbnToVbo {
 
     // 30 for the data and then the bytes 13, 10, 36
     private static final int DATA_PACKET_SIZE = 33;
+    private static final int PAYLOAD_SIZE = 28;
+    private static final byte[] DATA_SECTION_MARKER = "[DATA]".getBytes(StandardCharsets.US_ASCII);
 
     public static void convert(String dbnFilePath, String vboFilePath) {
-        final DecimalFormat satsFormat = (DecimalFormat) DecimalFormat.getInstance(Locale.US);
-        satsFormat.applyPattern("000");
-
-        final DecimalFormat coordinatesFormat = (DecimalFormat) DecimalFormat.getInstance(Locale.US);
-        coordinatesFormat.applyPattern("00000.00000000");
-
-        final DecimalFormat commonDecimalFormat = (DecimalFormat) DecimalFormat.getInstance(Locale.US);
-        commonDecimalFormat.applyPattern("0000.0000");
-
         final String fileTag = String.format(
             "File created on %s",
             new SimpleDateFormat("dd/MM/yyyy HH:mm:ss").format(new Date())
         );
         try (
-                final InputStream dbnStream = new FileInputStream(dbnFilePath);
-                final FileWriter writer = new FileWriter(vboFilePath);
-                final BufferedWriter vboWriter = new BufferedWriter(writer)
+                final FileChannel dbnChannel = FileChannel.open(Paths.get(dbnFilePath), StandardOpenOption.READ);
+                final VboLineWriter vboWriter = new VboLineWriter(FileChannel.open(Paths.get(vboFilePath),
+                        StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE))
         ) {
             vboWriter.write(fileTag +
                     "\n" +
@@ -75,67 +71,41 @@ public class DbnToVbo {
                     "[data]\n"
             );
 
-            // Read until the [DATA] section is reached.
-            do {
-                if (dbnStream.read() == '[' &&
-                    dbnStream.read() == 'D' &&
-                    dbnStream.read() == 'A' &&
-                    dbnStream.read() == 'T' &&
-                    dbnStream.read() == 'A' &&
-                    dbnStream.read() == ']') {
-                    // the bytes 13, 10, 36 follow the [DATA]
-                    dbnStream.read();
-                    dbnStream.read();
-                    dbnStream.read();
-                    break;
-                }
-            } while (dbnStream.available() >= 6);
-
-            final byte[] dataPacketBytes = new byte[DATA_PACKET_SIZE];
-            while (dbnStream.read(dataPacketBytes) == DATA_PACKET_SIZE) {
-
-                final byte sats = dataPacketBytes[0];
-
-                final int time = convertThreeBytesToUnsingedInt(dataPacketBytes[3], dataPacketBytes[2], dataPacketBytes[1]) * 10;
-
-                final double latitude = convertFourBytesToUnsingedInt(dataPacketBytes[7], dataPacketBytes[6], dataPacketBytes[5], dataPacketBytes[4]) / 100000.0;
-
-                final double longitude = -(convertFourBytesToUnsingedInt(dataPacketBytes[11], dataPacketBytes[10], dataPacketBytes[9], dataPacketBytes[8]) / 100000.0);
-
-                final double velocity = convertTwoBytesToUnsignedInt(dataPacketBytes[13], dataPacketBytes[12]) / 100.0;
-
-                final double heading = convertTwoBytesToUnsignedInt(dataPacketBytes[15], dataPacketBytes[14]) / 100.0;
-
-                final double height = convertFourBytesToUnsingedInt(dataPacketBytes[19], dataPacketBytes[18], dataPacketBytes[17], dataPacketBytes[16]) / 100.0;
+            final long dbnSize = dbnChannel.size();
+            if (dbnSize > Integer.MAX_VALUE) {
+                throw new IOException(String.format("Dbn file %s is too large to map (%d bytes)", dbnFilePath, dbnSize));
+            }
+            // multi byte values are big endian, the default order of the buffer
+            final ByteBuffer dbnData = dbnChannel.map(FileChannel.MapMode.READ_ONLY, 0, dbnSize);
+            final DbnChecksum dbnChecksum = new DbnChecksum();
 
-                final double yaw__ = convertTwoBytesToSignedInt(dataPacketBytes[21], dataPacketBytes[20]) / 10.0;
-                final double yaw_ = convertTwoBytesToSignedInt(dataPacketBytes[23], dataPacketBytes[22]) / 10.0;
-                final double yaw = convertTwoBytesToSignedInt(dataPacketBytes[25], dataPacketBytes[24]) / 10.0;
-                final double slip = convertTwoBytesToSignedInt(dataPacketBytes[27], dataPacketBytes[26]) / 10.0;
+            for (int packet = findDataStart(dbnData); packet + DATA_PACKET_SIZE <= dbnData.limit(); packet += DATA_PACKET_SIZE) {
 
-                final int checksum = convertTwoBytesToUnsignedInt(dataPacketBytes[29], dataPacketBytes[28]);
-                final int checksumCalc = calculateDbnChecksum(dataPacketBytes, 28);
+                final int checksum = dbnData.getShort(packet + PAYLOAD_SIZE) & 0xFFFF;
+                dbnChecksum.reset();
+                dbnChecksum.update(dbnData, packet, PAYLOAD_SIZE);
+                final int checksumCalc = (int) dbnChecksum.getValue();
 
                 if (checksum != checksumCalc) {
-                    throw new RuntimeException();
+                    throw new IOException(String.format("Invalid checksum of data packet at offset %d", packet));
                 }
 
-                vboWriter.write(
-                    String.format(
-                        "%s %s %s %s %s %s %s %s  %s %s %s\n",
-                        satsFormat.format(sats),
-                        millisToVboTime(time),
-                        coordinatesFormat.format(latitude),
-                        coordinatesFormat.format(longitude),
-                        commonDecimalFormat.format(velocity),
-                        commonDecimalFormat.format(heading),
-                        commonDecimalFormat.format(height),
-                        commonDecimalFormat.format(yaw__),
-                        commonDecimalFormat.format(yaw_),
-                        commonDecimalFormat.format(yaw),
-                        commonDecimalFormat.format(slip)
-                    )
-                );
+                // values are written as scaled integers, the same output as the previous DecimalFormat patterns
+                // "000", "00000.00000000" and "0000.0000"
+                vboWriter.writeInt(dbnData.get(packet), 3).write(' ');
+                final int time = (dbnData.get(packet + 1) & 0xFF) << 16 | (dbnData.getShort(packet + 2) & 0xFFFF);
+                vboWriter.writeVboTime(time * 10L).write(' ');
+                vboWriter.writeFixedPoint(dbnData.getInt(packet + 4), 5, 5, 8).write(' ');
+                // the longitude is negated, a zero longitude is written as negative zero
+                final int longitude = dbnData.getInt(packet + 8);
+                vboWriter.writeFixedPoint(longitude >= 0, Math.abs((long) longitude), 5, 5, 8).write(' ');
+                vboWriter.writeFixedPoint(dbnData.getShort(packet + 12) & 0xFFFF, 2, 4, 4).write(' ');
+                vboWriter.writeFixedPoint(dbnData.getShort(packet + 14) & 0xFFFF, 2, 4, 4).write(' ');
+                vboWriter.writeFixedPoint(dbnData.getInt(packet + 16), 2, 4, 4).write(' ');
+                vboWriter.writeFixedPoint(dbnData.getShort(packet + 20), 1, 4, 4).write("  ");
+                vboWriter.writeFixedPoint(dbnData.getShort(packet + 22), 1, 4, 4).write(' ');
+                vboWriter.writeFixedPoint(dbnData.getShort(packet + 24), 1, 4, 4).write(' ');
+                vboWriter.writeFixedPoint(dbnData.getShort(packet + 26), 1, 4, 4).write('\n');
             }
         } catch (Exception e) {
             throw new RuntimeException(e);
@@ -144,46 +114,50 @@ public class DbnToVbo {
 
     }
 
+    /**
+     * @see DbnChecksum
+     */
     public static int calculateDbnChecksum(byte[] data, int length) {
-        int crc = 0;
-        for (int i = 0; i < length; i++) {
-            crc = crc ^ (data[i] * 256);
-            crc = crc % 65536;
-            for (int j = 8; j > 0; j--) {
-                if ((crc & 32768) == 32768) {
-                    crc = crc * 2;
-                    crc = (crc ^ 4132);
-                } else {
-                    crc = crc * 2;
-                }
-                crc = crc % 65536;
-            }
-        }
-        return crc & 0xffff; // convert to unsigned int
-    }
-
-    private static String millisToVboTime(int millis) {
-        final int hour = millis / (1000 * 60 * 60);
-        final int minute = (millis - hour * 1000 * 60 * 60) / (1000 * 60);
-        final int second = (millis - hour * 1000 * 60 * 60 - minute * 1000 * 60) / 1000;
-        final int secondDecimal = millis - hour * 1000 * 60 * 60 - minute * 1000 * 60 - second * 1000;
-
-        return String.format("%02d%02d%02d.%03d", hour, minute, second, secondDecimal);
+        final DbnChecksum checksum = new DbnChecksum();
+        checksum.update(data, 0, length);
+        return (int) checksum.getValue();
     }
 
-    private static int convertFourBytesToUnsingedInt(byte b1, byte b2, byte b3, byte b4) {
-        return (b4 & 0xFF) << 24 | (b3 & 0xFF) << 16 | (b2 & 0xFF) << 8 | (b1 & 0xFF);
+    /**
+     * Calculates the checksum of the given bytes of the buffer, the position of the buffer is not changed.
+     *
+     * @param data   the buffer
+     * @param offset the absolute position of the first byte
+     * @param length the number of bytes
+     * @return the checksum as an unsigned int
+     * @see DbnChecksum
+     */
+    public static int calculateDbnChecksum(ByteBuffer data, int offset, int length) {
+        final DbnChecksum checksum = new DbnChecksum();
+        checksum.update(data, offset, length);
+        return (int) checksum.getValue();
     }
 
-    private static int convertThreeBytesToUnsingedInt(byte b1, byte b2, byte b3) {
-        return (b3 & 0xFF) << 16 | (b2 & 0xFF) << 8 | (b1 & 0xFF);
-    }
-
-    private static int convertTwoBytesToUnsignedInt(byte b1, byte b2) {
-        return (b2 & 0xFF) << 8 | (b1 & 0xFF);
+    /**
+     * @return the position of the first data packet or the limit of the buffer if there is no data section
+     */
+    private static int findDataStart(ByteBuffer dbnData) {
+        final int lastStart = dbnData.limit() - DATA_SECTION_MARKER.length;
+        for (int i = 0; i <= lastStart; i++) {
+            if (dbnData.get(i) == DATA_SECTION_MARKER[0] && matchesDataSectionMarker(dbnData, i)) {
+                // the bytes 13, 10, 36 follow the [DATA]
+                return Math.min(i + DATA_SECTION_MARKER.length + 3, dbnData.limit());
+            }
+        }
+        return dbnData.limit();
     }
 
-    private static int convertTwoBytesToSignedInt(byte b1, byte b2) {
-        return b2 << 8 | b1;
+    private static boolean matchesDataSectionMarker(ByteBuffer dbnData, int position) {
+        for (int i = 1; i < DATA_SECTION_MARKER.length; i++) {
+            if (dbnData.get(position + i) != DATA_SECTION_MARKER[i]) {
+                return false;
+            }
+        }
+        return true;
     }
 }
@@ -0,0 +1,335 @@
+package org.sikrip.vboeditor.engine;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.sikrip.vboeditor.engine.VboUtils.DATA_SECTION;
+import static org.sikrip.vboeditor.engine.VboUtils.HEADER_SECTION;
+
+/**
+ * Random access, memory mapped view of a vbo file.
+ * <p>
+ * Opening the file reads the sections that precede the data section and indexes the start of every data line in
+ * one pass, no data line is decoded until it is requested by its row number.
+ * A mapping is limited to 2GB, so the file is mapped in regions of 1GB that overlap by 1MB. Every line starts in
+ * a region that also holds its end (lines are far shorter than the overlap), so a line is always read from a single
+ * buffer. The convenience accessors share a single tokenizer and are not thread safe, concurrent readers should use
+ * their own {@link RowReader}.
+ */
+public final class MappedVboFile implements Closeable {
+
+    private static final int INITIAL_INDEX_CAPACITY = 4096;
+    private static final String DEFAULT_DATA_SEPARATOR = " ";
+    private static final long DEFAULT_REGION_SIZE = 1L << 30;
+    private static final int DEFAULT_REGION_OVERLAP = 1 << 20;
+
+    private final FileChannel channel;
+    // region i starts at i * regionSize and is regionOverlap bytes longer, except the last one
+    private final MappedByteBuffer[] regions;
+    private final long regionSize;
+    private final int regionOverlap;
+    private final long size;
+    private final List<String> preamble = new ArrayList<>();
+    private final Map<String, List<String>> sections = new HashMap<>();
+    private final boolean hasDataSection;
+    private final long dataStart;
+    private long dataEnd;
+    private long[] rowOffsets = new long[INITIAL_INDEX_CAPACITY];
+    private int rowCount;
+    private final String dataSeparator;
+    private final int timeIdx;
+    private RowReader rowReader;
+
+    private MappedVboFile(FileChannel channel, long regionSize, int regionOverlap) throws IOException {
+        this.channel = channel;
+        this.regionSize = regionSize;
+        this.regionOverlap = regionOverlap;
+        size = channel.size();
+        regions = new MappedByteBuffer[(int) Math.max(1, (size + regionSize - 1) / regionSize)];
+        for (int i = 0; i < regions.length; i++) {
+            final long regionStart = i * regionSize;
+            regions[i] = channel.map(FileChannel.MapMode.READ_ONLY, regionStart,
+                    Math.min(regionSize + regionOverlap, size - regionStart));
+        }
+
+        dataStart = readSections(0);
+        hasDataSection = dataStart >= 0;
+        dataEnd = hasDataSection ? dataStart : 0;
+        if (hasDataSection) {
+            indexDataLines();
+        }
+        rowOffsets = Arrays.copyOf(rowOffsets, rowCount);
+        final String separator = rowCount > 0 ? VboUtils.getDataSeparator(getRow(0)) : null;
+        dataSeparator = separator != null ? separator : DEFAULT_DATA_SEPARATOR;
+        timeIdx = getColumnIndex("time");
+    }
+
+    /**
+     * Maps and indexes the given vbo file.
+     *
+     * @param vboFilePath the path of the vbo file
+     * @return the mapped file, it should be closed when no longer needed
+     * @throws IOException when the file cannot be read or has a data line longer than 1MB
+     */
+    public static MappedVboFile open(String vboFilePath) throws IOException {
+        return open(vboFilePath, DEFAULT_REGION_SIZE, DEFAULT_REGION_OVERLAP);
+    }
+
+    /**
+     * Maps and indexes the given vbo file with the given regions.
+     *
+     * @param regionSize    the distance between the starts of consecutive regions
+     * @param regionOverlap the bytes a region extends into the next one, the maximum length of a line
+     */
+    static MappedVboFile open(String vboFilePath, long regionSize, int regionOverlap) throws IOException {
+        if (regionSize <= 0 || regionOverlap <= 0 || regionSize + regionOverlap > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid region size " + regionSize + " or overlap " + regionOverlap);
+        }
+        final FileChannel channel = FileChannel.open(Paths.get(vboFilePath), StandardOpenOption.READ);
+        try {
+            return new MappedVboFile(channel, regionSize, regionOverlap);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return the lines found before the first section (e.g. the "File created on..." line)
+     */
+    public List<String> getPreamble() {
+        return Collections.unmodifiableList(preamble);
+    }
+
+    /**
+     * @return all the sections except the data section
+     */
+    public Map<String, List<String>> getSections() {
+        return Collections.unmodifiableMap(sections);
+    }
+
+    /**
+     * @return the entries of the header section or an empty list if there is no header
+     */
+    public List<String> getHeader() {
+        final List<String> header = sections.get(HEADER_SECTION);
+        return header != null ? Collections.unmodifiableList(header) : Collections.<String>emptyList();
+    }
+
+    /**
+     * @return the index of the given header entry or -1 if it is not present
+     */
+    public int getColumnIndex(String columnName) {
+        return getHeader().indexOf(columnName);
+    }
+
+    public boolean hasDataSection() {
+        return hasDataSection;
+    }
+
+    /**
+     * @return the number of (non empty) data lines
+     */
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public String getDataSeparator() {
+        return dataSeparator;
+    }
+
+    /**
+     * @return the data line of the given row, decoded to a String
+     */
+    public String getRow(int row) {
+        return decode(getRowStart(row), getRowEnd(row));
+    }
+
+    /**
+     * @return the time of the given row in milliseconds
+     */
+    public long getTimeMillis(int row) {
+        return getRowReader().read(row).getTimeMillis(timeIdx);
+    }
+
+    /**
+     * @return the value of the given column of the given row
+     */
+    public double getDouble(int row, int column) {
+        return getRowReader().read(row).getDouble(column);
+    }
+
+    /**
+     * The mappings themselves are released when the buffers are garbage collected.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * @return a new reader for the rows of this file, readers are not thread safe but can be used concurrently
+     */
+    RowReader newRowReader() {
+        return new RowReader();
+    }
+
+    long getRowStart(int row) {
+        if (row < 0 || row >= rowCount) {
+            throw new IndexOutOfBoundsException(String.format("Row %d, row count %d", row, rowCount));
+        }
+        return rowOffsets[row];
+    }
+
+    /**
+     * @return the position right after the last char of the row, line terminators excluded
+     */
+    long getRowEnd(int row) {
+        final long rowStart = getRowStart(row);
+        return trimLineEnd(rowStart, findLineEnd(rowStart, dataEnd));
+    }
+
+    private RowReader getRowReader() {
+        if (rowReader == null) {
+            rowReader = newRowReader();
+        }
+        return rowReader;
+    }
+
+    /**
+     * Reads the sections starting from the given position.
+     *
+     * @return the position of the first line after the data section marker or -1 if the data section is not found
+     */
+    private long readSections(long position) {
+        List<String> sectionData = null;
+        while (position < size) {
+            final long lineEnd = findLineEnd(position, size);
+            final long nextLine = Math.min(lineEnd + 1, size);
+            final long contentEnd = trimLineEnd(position, lineEnd);
+            if (contentEnd > position) {
+                final String vboLine = decode(position, contentEnd);
+                if (vboLine.startsWith("[")) {
+                    if (vboLine.equalsIgnoreCase(DATA_SECTION)) {
+                        return nextLine;
+                    }
+                    sectionData = new ArrayList<>();
+                    sections.put(vboLine, sectionData);
+                } else if (sectionData != null) {
+                    sectionData.add(vboLine);
+                } else {
+                    preamble.add(vboLine);
+                }
+            }
+            position = nextLine;
+        }
+        return -1;
+    }
+
+    private void indexDataLines() throws IOException {
+        long position = dataStart;
+        while (position < size) {
+            final long lineEnd = findLineEnd(position, size);
+            if (trimLineEnd(position, lineEnd) > position) {
+                if (getByte(position) == '[') {
+                    // the data section ended, keep whatever follows
+                    readSections(position);
+                    return;
+                }
+                if (lineEnd - position > regionOverlap) {
+                    throw new IOException(String.format("Data line at %d is longer than %d bytes", position,
+                            regionOverlap));
+                }
+                if (rowCount == rowOffsets.length) {
+                    rowOffsets = Arrays.copyOf(rowOffsets, rowCount * 2);
+                }
+                rowOffsets[rowCount++] = position;
+            }
+            position = Math.min(lineEnd + 1, size);
+            dataEnd = position;
+        }
+    }
+
+    private int getRegion(long position) {
+        return (int) (position / regionSize);
+    }
+
+    private byte getByte(long position) {
+        final int region = getRegion(position);
+        return regions[region].get((int) (position - region * regionSize));
+    }
+
+    /**
+     * @return the position of the next '\n' or the limit
+     */
+    private long findLineEnd(long position, long limit) {
+        while (position < limit) {
+            // scan the region of the position, up to its end or the limit
+            final int region = getRegion(position);
+            final ByteBuffer buffer = regions[region];
+            final long regionStart = region * regionSize;
+            final int end = (int) (Math.min(limit, regionStart + buffer.limit()) - regionStart);
+            int offset = (int) (position - regionStart);
+            while (offset < end && buffer.get(offset) != '\n') {
+                offset++;
+            }
+            position = regionStart + offset;
+            if (offset < end) {
+                return position;
+            }
+        }
+        return limit;
+    }
+
+    private long trimLineEnd(long lineStart, long lineEnd) {
+        return lineEnd > lineStart && getByte(lineEnd - 1) == '\r' ? lineEnd - 1 : lineEnd;
+    }
+
+    private String decode(long start, long end) {
+        final byte[] bytes = new byte[(int) (end - start)];
+        final int region = getRegion(start);
+        final long regionStart = region * regionSize;
+        if (end <= regionStart + regions[region].limit()) {
+            regions[region].get((int) (start - regionStart), bytes);
+        } else {
+            // only section lines can be longer than the overlap
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = getByte(start + i);
+            }
+        }
+        return new String(bytes, Charset.defaultCharset());
+    }
+
+    /**
+     * Tokenizes rows of the file, every reader has its own state.
+     */
+    final class RowReader {
+
+        private final ByteCharSequence line = new ByteCharSequence(regions[0]);
+        private final VboLineTokenizer tokenizer = new VboLineTokenizer(dataSeparator);
+
+        /**
+         * @return the tokenizer positioned on the given row, valid until the next call
+         */
+        VboLineTokenizer read(int row) {
+            final long start = getRowStart(row);
+            // the region of the start holds the whole line
+            final int region = getRegion(start);
+            final long regionStart = region * regionSize;
+            return tokenizer.reset(line.reset(regions[region], (int) (start - regionStart),
+                    (int) (getRowEnd(row) - regionStart)));
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package org.sikrip.vboeditor.engine;
+
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Parses the data lines of a {@link MappedVboFile} in parallel.
+ * <p>
+ * The data section is split in chunks of whole lines (row ranges of the file's line index), every chunk is parsed
+ * on a {@link ForkJoinPool} into its own {@link TelemetryColumns} and the chunks are then concatenated in order,
+ * so the result is the same as parsing the lines one by one. The chunks can also be streamed to a {@link Listener}
+ * in file order, while the later chunks are still being parsed.
+ */
+final class ParallelTelemetryLoader {
+
+    // smaller files are parsed on the calling thread
+    private static final int MIN_PARALLEL_ROWS = 100000;
+    private static final int MIN_CHUNK_ROWS = 16384;
+    // a few chunks per thread to even out the load
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    /**
+     * Receives the samples of a file as its rows are parsed, in file order.
+     */
+    interface Listener {
+
+        /**
+         * @param columns  the samples of the rows parsed so far, the next rows are appended to the same columns
+         * @param rows     the number of rows parsed so far
+         * @param rowCount the number of rows of the file
+         */
+        void rowsLoaded(TelemetryColumns columns, int rows, int rowCount);
+    }
+
+    private ParallelTelemetryLoader() {/*hidden*/}
+
+    /**
+     * Parses all the rows of the given file on the common pool.
+     */
+    static TelemetryColumns load(MappedVboFile vboFile, TelemetryRowParser rowParser) {
+        final int rowCount = vboFile.getRowCount();
+        if (rowCount < MIN_PARALLEL_ROWS) {
+            return parse(vboFile, rowParser, 0, rowCount);
+        }
+        final ForkJoinPool pool = ForkJoinPool.commonPool();
+        final int chunkRows = Math.max(MIN_CHUNK_ROWS, rowCount / (pool.getParallelism() * CHUNKS_PER_THREAD) + 1);
+        return load(vboFile, rowParser, pool, chunkRows);
+    }
+
+    /**
+     * Parses all the rows of the given file on the given pool.
+     *
+     * @param chunkRows the number of rows parsed by each task
+     */
+    static TelemetryColumns load(MappedVboFile vboFile, TelemetryRowParser rowParser, ForkJoinPool pool,
+                                 int chunkRows) {
+        final int rowCount = vboFile.getRowCount();
+        final List<ChunkTask> chunks = new ArrayList<>();
+        for (int fromRow = 0; fromRow < rowCount; fromRow += chunkRows) {
+            chunks.add(new ChunkTask(vboFile, rowParser, fromRow, Math.min(fromRow + chunkRows, rowCount)));
+        }
+        return pool.invoke(new RecursiveTask<TelemetryColumns>() {
+            @Override
+            protected TelemetryColumns compute() {
+                ForkJoinTask.invokeAll(chunks);
+                int size = 0;
+                for (ChunkTask chunk : chunks) {
+                    size += chunk.join().getSize();
+                }
+                final TelemetryColumns columns = rowParser.newColumns(size);
+                for (ChunkTask chunk : chunks) {
+                    columns.addAll(chunk.join());
+                }
+                return columns;
+            }
+        });
+    }
+
+    /**
+     * Parses all the rows of the given file, passing the samples to the listener on the calling thread after every
+     * chunk. Large files are parsed on the common pool, so the next chunks are parsed while the listener runs.
+     *
+     * @throws InterruptedIOException when the calling thread is interrupted, the remaining chunks are cancelled
+     */
+    static TelemetryColumns load(MappedVboFile vboFile, TelemetryRowParser rowParser, Listener listener)
+            throws InterruptedIOException {
+        final int rowCount = vboFile.getRowCount();
+        final boolean parallel = rowCount >= MIN_PARALLEL_ROWS;
+        final List<ChunkTask> chunks = new ArrayList<>();
+        for (int fromRow = 0; fromRow < rowCount; fromRow += MIN_CHUNK_ROWS) {
+            final ChunkTask chunk = new ChunkTask(vboFile, rowParser, fromRow,
+                    Math.min(fromRow + MIN_CHUNK_ROWS, rowCount));
+            if (parallel) {
+                ForkJoinPool.commonPool().execute(chunk);
+            }
+            chunks.add(chunk);
+        }
+        final TelemetryColumns columns = rowParser.newColumns(rowCount);
+        try {
+            for (ChunkTask chunk : chunks) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedIOException("Loading of the telemetry was interrupted");
+                }
+                columns.addAll(parallel ? chunk.join() : chunk.invoke());
+                listener.rowsLoaded(columns, chunk.toRow, rowCount);
+            }
+        } finally {
+            for (ChunkTask chunk : chunks) {
+                chunk.cancel(false);
+            }
+        }
+        return columns;
+    }
+
+    private static TelemetryColumns parse(MappedVboFile vboFile, TelemetryRowParser rowParser, int fromRow,
+                                          int toRow) {
+        final TelemetryColumns columns = rowParser.newColumns(toRow - fromRow);
+        final MappedVboFile.RowReader rowReader = vboFile.newRowReader();
+        for (int row = fromRow; row < toRow; row++) {
+            rowParser.parse(rowReader.read(row), columns);
+        }
+        return columns;
+    }
+
+    private static final class ChunkTask extends RecursiveTask<TelemetryColumns> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final MappedVboFile vboFile;
+        private final TelemetryRowParser rowParser;
+        private final int fromRow;
+        private final int toRow;
+
+        private ChunkTask(MappedVboFile vboFile, TelemetryRowParser rowParser, int fromRow, int toRow) {
+            this.vboFile = vboFile;
+            this.rowParser = rowParser;
+            this.fromRow = fromRow;
+            this.toRow = toRow;
+        }
+
+        @Override
+        protected TelemetryColumns compute() {
+            return parse(vboFile, rowParser, fromRow, toRow);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package org.sikrip.vboeditor.engine;
+
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Streaming estimator of the sampling interval of a telemetry session.
+ * <p>
+ * The times are added one by one, every delta between consecutive times goes to a millisecond histogram so the
+ * interval is the median delta of the whole session, refined with the mean of the deltas close to it for rates that
+ * are not a whole number of milliseconds (or of the time resolution, e.g. 30 Hz with 10 ms times). Deltas that are
+ * much larger than the interval are counted as dropouts. The time is the time of day, so a delta that crosses
+ * midnight is wrapped.
+ */
+final class SampleIntervalEstimator {
+
+    private static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+    // larger deltas (dropouts or rates below 0.5 Hz) are counted per value in a map
+    private static final int MAX_HISTOGRAM_DELTA = 2000;
+    // a delta longer than this many intervals is a dropout
+    private static final double DROPOUT_INTERVALS = 1.5;
+    // consecutive similar deltas needed to establish a rate
+    private static final int RATE_RUN_LENGTH = 50;
+
+    private final long[] histogram = new long[MAX_HISTOGRAM_DELTA + 1];
+    private final NavigableMap<Long, Long> overflowDeltas = new TreeMap<>();
+    private long deltaCount;
+    private long previousTime = -1;
+
+    // rate change detection
+    private long establishedDelta = -1;
+    private long runDelta = -1;
+    private int runLength;
+    private int rateChanges;
+
+    /**
+     * Adds the time of the next sample.
+     *
+     * @param timeMillis the time of day of the sample in milliseconds
+     */
+    void add(long timeMillis) {
+        if (previousTime >= 0) {
+            long delta = timeMillis - previousTime;
+            if (delta < -MILLIS_PER_DAY / 2) {
+                // crossed midnight
+                delta += MILLIS_PER_DAY;
+            }
+            if (delta > 0) {
+                addDelta(delta);
+            }
+        }
+        previousTime = timeMillis;
+    }
+
+    private void addDelta(long delta) {
+        deltaCount++;
+        if (delta <= MAX_HISTOGRAM_DELTA) {
+            histogram[(int) delta]++;
+        } else {
+            overflowDeltas.merge(delta, 1L, Long::sum);
+        }
+
+        if (runDelta > 0 && Math.abs(delta - runDelta) <= Math.max(1, runDelta / 4)) {
+            runLength++;
+        } else {
+            runDelta = delta;
+            runLength = 1;
+        }
+        if (runLength == RATE_RUN_LENGTH) {
+            if (establishedDelta > 0 && Math.abs(runDelta - establishedDelta) > establishedDelta / 4) {
+                rateChanges++;
+            }
+            establishedDelta = runDelta;
+        }
+    }
+
+    /**
+     * @return the number of positive deltas added
+     */
+    long getDeltaCount() {
+        return deltaCount;
+    }
+
+    /**
+     * @return the sampling interval in milliseconds, or 0 when less than two increasing times were added
+     */
+    int getInterval() {
+        if (deltaCount == 0) {
+            return 0;
+        }
+        final long median = getMedianDelta();
+        // the mean of the deltas within a third of the median, dropouts and other rates are excluded
+        final long tolerance = Math.max(1, median / 3);
+        final long from = Math.max(1, median - tolerance);
+        final long to = median + tolerance;
+        long count = 0;
+        long sum = 0;
+        for (int delta = (int) Math.min(from, MAX_HISTOGRAM_DELTA + 1); delta <= Math.min(MAX_HISTOGRAM_DELTA, to);
+             delta++) {
+            count += histogram[delta];
+            sum += histogram[delta] * delta;
+        }
+        for (Map.Entry<Long, Long> overflow : overflowDeltas.subMap(from, true, to, true).entrySet()) {
+            count += overflow.getValue();
+            sum += overflow.getValue() * overflow.getKey();
+        }
+        return (int) Math.round((double) sum / count);
+    }
+
+    /**
+     * @return the number of deltas longer than 1.5 sampling intervals
+     */
+    long getDropoutCount() {
+        final int interval = getInterval();
+        if (interval == 0) {
+            return 0;
+        }
+        final long minDropoutDelta = (long) Math.floor(interval * DROPOUT_INTERVALS) + 1;
+        long dropouts = 0;
+        for (int delta = (int) Math.min(minDropoutDelta, MAX_HISTOGRAM_DELTA + 1); delta <= MAX_HISTOGRAM_DELTA;
+             delta++) {
+            dropouts += histogram[delta];
+        }
+        for (long count : overflowDeltas.tailMap(minDropoutDelta, true).values()) {
+            dropouts += count;
+        }
+        return dropouts;
+    }
+
+    /**
+     * @return the number of times the logger switched to a different rate for at least 50 samples
+     */
+    int getRateChangeCount() {
+        return rateChanges;
+    }
+
+    private long getMedianDelta() {
+        final long half = (deltaCount + 1) / 2;
+        long cumulative = 0;
+        for (int delta = 1; delta <= MAX_HISTOGRAM_DELTA; delta++) {
+            cumulative += histogram[delta];
+            if (cumulative >= half) {
+                return delta;
+            }
+        }
+        for (Map.Entry<Long, Long> overflow : overflowDeltas.entrySet()) {
+            cumulative += overflow.getValue();
+            if (cumulative >= half) {
+                return overflow.getKey();
+            }
+        }
+        throw new IllegalStateException("No deltas added");
+    }
+}
@@ -0,0 +1,327 @@
+package org.sikrip.vboeditor.engine;
+
+import org.sikrip.vboeditor.model.TelemetrySession;
+
+/**
+ * Estimates the offset between a video and a telemetry session by cross-correlating a motion signal of the video with
+ * the speed or acceleration profile of the telemetry.
+ * <p>
+ * Both signals are resampled on a 10 ms grid and normalized, the cross-correlation of all the offsets is computed
+ * at once with an FFT (so a session of an hour takes a few FFTs of a million points). The peak is refined with the
+ * correlation coefficients of the overlapping parts of the lags around it and a parabola through its neighbours, to
+ * get the offset to the millisecond.
+ * The motion signal is any per frame value that follows the movement of the camera, e.g. the mean difference of
+ * consecutive frames.
+ */
+public final class SyncOffsetEstimator {
+
+    /**
+     * The telemetry signal correlated with the video motion.
+     */
+    public enum TelemetryProfile {
+        SPEED, ACCELERATION
+    }
+
+    /**
+     * An estimated offset.
+     */
+    public static final class Estimate {
+
+        private final long offsetMillis;
+        private final double correlation;
+
+        private Estimate(long offsetMillis, double correlation) {
+            this.offsetMillis = offsetMillis;
+            this.correlation = correlation;
+        }
+
+        /**
+         * @return the time (in millis) the telemetry starts after the video, negative if it starts before
+         */
+        public long getOffsetMillis() {
+            return offsetMillis;
+        }
+
+        /**
+         * @return the correlation of the overlapping parts of the signals at the offset, from -1 to 1, higher values
+         * are more reliable
+         */
+        public double getCorrelation() {
+            return correlation;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d ms (correlation %.3f)", offsetMillis, correlation);
+        }
+    }
+
+    private static final int RESAMPLE_INTERVAL_MILLIS = 10;
+    // the lags on either side of the correlation peak that are compared by their coefficient
+    private static final int PEAK_REFINE_LAGS = 10;
+
+    private final TelemetryProfile profile;
+    private final long maxOffsetMillis;
+
+    /**
+     * @param profile         the telemetry signal to use
+     * @param maxOffsetMillis the largest offset (either way) to consider
+     */
+    public SyncOffsetEstimator(TelemetryProfile profile, long maxOffsetMillis) {
+        if (maxOffsetMillis < 0) {
+            throw new IllegalArgumentException("Invalid max offset " + maxOffsetMillis);
+        }
+        this.profile = profile;
+        this.maxOffsetMillis = maxOffsetMillis;
+    }
+
+    /**
+     * @param session     the telemetry
+     * @param motionTimes the time of every motion value, in millis since the start of the video, increasing
+     * @param motion      the motion value of every video frame
+     * @return the offset of the telemetry with the highest correlation
+     */
+    public Estimate estimate(TelemetrySession session, double[] motionTimes, double[] motion) {
+        if (session.getSize() < 2 || motionTimes.length < 2 || motionTimes.length != motion.length) {
+            throw new IllegalArgumentException("Not enough telemetry or video motion data");
+        }
+        final double[] telemetrySignal = normalize(getTelemetrySignal(session));
+        final double[] videoSignal = normalize(resample(motionTimes, motion));
+        final int telemetryLength = telemetrySignal.length;
+        final int videoLength = videoSignal.length;
+
+        // zero padded, so the correlation does not wrap around
+        int size = 1;
+        while (size < telemetryLength + videoLength) {
+            size <<= 1;
+        }
+        final double[] correlation = crossCorrelate(telemetrySignal, videoSignal, size);
+
+        // the correlation of the signals at the offset of (lag * interval), negative lags are at the end
+        final long maxOffsetLag = maxOffsetMillis / RESAMPLE_INTERVAL_MILLIS;
+        final int maxLag = (int) Math.min(maxOffsetLag, videoLength - 1);
+        final int minLag = (int) -Math.min(maxOffsetLag, telemetryLength - 1);
+        int bestLag = minLag;
+        for (int lag = minLag + 1; lag <= maxLag; lag++) {
+            if (correlation[lag & (size - 1)] > correlation[bestLag & (size - 1)]) {
+                bestLag = lag;
+            }
+        }
+
+        // the sums also grow with the variance of the overlapping telemetry, which shifts the peak of a clip that is
+        // shorter than the session, so the lags around it are compared by their correlation coefficient
+        final int refineFrom = Math.max(minLag, bestLag - PEAK_REFINE_LAGS);
+        final int refineTo = Math.min(maxLag, bestLag + PEAK_REFINE_LAGS);
+        double peak = getOverlapCorrelation(telemetrySignal, videoSignal, bestLag);
+        for (int lag = refineFrom; lag <= refineTo; lag++) {
+            final double coefficient = getOverlapCorrelation(telemetrySignal, videoSignal, lag);
+            if (coefficient > peak) {
+                peak = coefficient;
+                bestLag = lag;
+            }
+        }
+
+        double peakShift = 0;
+        if (bestLag > minLag && bestLag < maxLag) {
+            final double before = getOverlapCorrelation(telemetrySignal, videoSignal, bestLag - 1);
+            final double after = getOverlapCorrelation(telemetrySignal, videoSignal, bestLag + 1);
+            final double curvature = before - 2 * peak + after;
+            if (curvature < 0) {
+                peakShift = 0.5 * (before - after) / curvature;
+            }
+        }
+        return new Estimate(Math.round((bestLag + peakShift) * RESAMPLE_INTERVAL_MILLIS), peak);
+    }
+
+    /**
+     * @return the correlation coefficient of first[n] and second[n + lag] where both exist, 0 for a constant part
+     */
+    private static double getOverlapCorrelation(double[] first, double[] second, int lag) {
+        final int from = Math.max(0, -lag);
+        final int to = Math.min(first.length, second.length - lag);
+        final int count = to - from;
+        if (count < 2) {
+            return 0;
+        }
+        double firstSum = 0;
+        double secondSum = 0;
+        for (int n = from; n < to; n++) {
+            firstSum += first[n];
+            secondSum += second[n + lag];
+        }
+        final double firstMean = firstSum / count;
+        final double secondMean = secondSum / count;
+        double products = 0;
+        double firstSquares = 0;
+        double secondSquares = 0;
+        for (int n = from; n < to; n++) {
+            final double firstValue = first[n] - firstMean;
+            final double secondValue = second[n + lag] - secondMean;
+            products += firstValue * secondValue;
+            firstSquares += firstValue * firstValue;
+            secondSquares += secondValue * secondValue;
+        }
+        if (firstSquares == 0 || secondSquares == 0) {
+            return 0;
+        }
+        return products / Math.sqrt(firstSquares * secondSquares);
+    }
+
+    private double[] getTelemetrySignal(TelemetrySession session) {
+        final int length = (int) (session.getElapsedTime(session.getSize() - 1) / RESAMPLE_INTERVAL_MILLIS) + 1;
+        final double[] signal = new double[length];
+        for (int i = 0; i < length; i++) {
+            signal[i] = session.getSpeedAt((long) i * RESAMPLE_INTERVAL_MILLIS);
+        }
+        if (profile == TelemetryProfile.ACCELERATION) {
+            // central differences so the profile is not shifted, the scale does not matter after the normalization
+            final double[] acceleration = new double[length];
+            for (int i = 0; i < length; i++) {
+                acceleration[i] = signal[Math.min(i + 1, length - 1)] - signal[Math.max(i - 1, 0)];
+            }
+            return acceleration;
+        }
+        return signal;
+    }
+
+    private static double[] resample(double[] times, double[] values) {
+        final int length = (int) (times[times.length - 1] / RESAMPLE_INTERVAL_MILLIS) + 1;
+        if (length < 2) {
+            throw new IllegalArgumentException("Not enough video motion data");
+        }
+        final double[] signal = new double[length];
+        int next = 0;
+        for (int i = 0; i < length; i++) {
+            final double time = (double) i * RESAMPLE_INTERVAL_MILLIS;
+            while (next < times.length && times[next] <= time) {
+                next++;
+            }
+            if (next == 0) {
+                signal[i] = values[0];
+            } else if (next == times.length) {
+                signal[i] = values[times.length - 1];
+            } else {
+                final double fraction = (time - times[next - 1]) / (times[next] - times[next - 1]);
+                signal[i] = values[next - 1] + (values[next] - values[next - 1]) * fraction;
+            }
+        }
+        return signal;
+    }
+
+    /**
+     * Scales the signal to zero mean and unit variance.
+     */
+    private static double[] normalize(double[] signal) {
+        double sum = 0;
+        for (double value : signal) {
+            sum += value;
+        }
+        final double mean = sum / signal.length;
+        double squares = 0;
+        for (double value : signal) {
+            squares += (value - mean) * (value - mean);
+        }
+        if (squares == 0) {
+            throw new IllegalArgumentException("Cannot correlate a constant signal");
+        }
+        final double deviation = Math.sqrt(squares / signal.length);
+        for (int i = 0; i < signal.length; i++) {
+            signal[i] = (signal[i] - mean) / deviation;
+        }
+        return signal;
+    }
+
+    /**
+     * Computes sum(first[n] * second[n + lag]) for every lag, with both real signals transformed by a single complex
+     * FFT.
+     *
+     * @return the correlation of every lag, negative lags are at (size + lag)
+     */
+    private static double[] crossCorrelate(double[] first, double[] second, int size) {
+        final double[] real = new double[size];
+        final double[] imaginary = new double[size];
+        System.arraycopy(first, 0, real, 0, first.length);
+        System.arraycopy(second, 0, imaginary, 0, second.length);
+        fft(real, imaginary);
+
+        // split the transforms (F = (Z[k] + conj(Z[-k])) / 2, S = (Z[k] - conj(Z[-k])) / 2i) and keep conj(F) * S
+        for (int k = 0; k <= size / 2; k++) {
+            final int mirror = (size - k) & (size - 1);
+            final double zr = real[k];
+            final double zi = imaginary[k];
+            final double mr = real[mirror];
+            final double mi = imaginary[mirror];
+            real[k] = conjugateProduct(zr, zi, mr, mi, true);
+            imaginary[k] = conjugateProduct(zr, zi, mr, mi, false);
+            real[mirror] = conjugateProduct(mr, mi, zr, zi, true);
+            imaginary[mirror] = conjugateProduct(mr, mi, zr, zi, false);
+        }
+
+        // the inverse transform is the conjugate of the transform of the conjugate
+        for (int i = 0; i < size; i++) {
+            imaginary[i] = -imaginary[i];
+        }
+        fft(real, imaginary);
+        for (int i = 0; i < size; i++) {
+            real[i] /= size;
+        }
+        return real;
+    }
+
+    private static double conjugateProduct(double zr, double zi, double mr, double mi, boolean realPart) {
+        final double firstReal = (zr + mr) / 2;
+        final double firstImaginary = (zi - mi) / 2;
+        final double secondReal = (zi + mi) / 2;
+        final double secondImaginary = (mr - zr) / 2;
+        return realPart
+                ? firstReal * secondReal + firstImaginary * secondImaginary
+                : firstReal * secondImaginary - firstImaginary * secondReal;
+    }
+
+    /**
+     * In place iterative radix-2 FFT, the length should be a power of two.
+     */
+    private static void fft(double[] real, double[] imaginary) {
+        final int size = real.length;
+        for (int i = 1, j = 0; i < size; i++) {
+            int bit = size >> 1;
+            for (; (j & bit) != 0; bit >>= 1) {
+                j ^= bit;
+            }
+            j ^= bit;
+            if (i < j) {
+                double swap = real[i];
+                real[i] = real[j];
+                real[j] = swap;
+                swap = imaginary[i];
+                imaginary[i] = imaginary[j];
+                imaginary[j] = swap;
+            }
+        }
+
+        final double[] cos = new double[size / 2];
+        final double[] sin = new double[size / 2];
+        for (int i = 0; i < size / 2; i++) {
+            cos[i] = Math.cos(-2 * Math.PI * i / size);
+            sin[i] = Math.sin(-2 * Math.PI * i / size);
+        }
+        for (int length = 2; length <= size; length <<= 1) {
+            final int half = length >> 1;
+            final int step = size / length;
+            for (int start = 0; start < size; start += length) {
+                for (int k = 0; k < half; k++) {
+                    final double wr = cos[k * step];
+                    final double wi = sin[k * step];
+                    final int even = start + k;
+                    final int odd = even + half;
+                    final double tr = real[odd] * wr - imaginary[odd] * wi;
+                    final double ti = real[odd] * wi + imaginary[odd] * wr;
+                    real[odd] = real[even] - tr;
+                    imaginary[odd] = imaginary[even] - ti;
+                    real[even] += tr;
+                    imaginary[even] += ti;
+                }
+            }
+        }
+    }
+}
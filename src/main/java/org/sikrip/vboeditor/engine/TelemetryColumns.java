@@ -0,0 +1,139 @@
+package org.sikrip.vboeditor.engine;
+
+import org.sikrip.vboeditor.model.TelemetrySession;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Growable primitive columns used while a {@link TelemetrySession} is being read.
+ */
+final class TelemetryColumns {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final String[] channelNames;
+    private int size;
+    private long[] time;
+    private double[] latitude;
+    private double[] longitude;
+    private double[] speed;
+    private double[][] channels;
+
+    /**
+     * @param channelNames the names of the additional channels
+     */
+    TelemetryColumns(List<String> channelNames) {
+        this(channelNames, INITIAL_CAPACITY);
+    }
+
+    /**
+     * @param channelNames    the names of the additional channels
+     * @param initialCapacity the number of samples that can be added before the columns grow
+     */
+    TelemetryColumns(List<String> channelNames, int initialCapacity) {
+        this.channelNames = channelNames.toArray(new String[0]);
+        final int capacity = Math.max(initialCapacity, 1);
+        time = new long[capacity];
+        latitude = new double[capacity];
+        longitude = new double[capacity];
+        speed = new double[capacity];
+        channels = new double[this.channelNames.length][capacity];
+    }
+
+    int getSize() {
+        return size;
+    }
+
+    /**
+     * @return the time of the given sample in milliseconds
+     */
+    long getTime(int sample) {
+        return time[sample];
+    }
+
+    int getChannelCount() {
+        return channelNames.length;
+    }
+
+    /**
+     * Appends a sample, the additional channel values should be set with {@link #setChannelValue(int, double)}.
+     */
+    void add(long sampleTime, double sampleLatitude, double sampleLongitude, double sampleSpeed) {
+        if (size == time.length) {
+            grow();
+        }
+        time[size] = sampleTime;
+        latitude[size] = sampleLatitude;
+        longitude[size] = sampleLongitude;
+        speed[size] = sampleSpeed;
+        size++;
+    }
+
+    /**
+     * Sets the value of an additional channel for the last sample added.
+     */
+    void setChannelValue(int channelIdx, double value) {
+        channels[channelIdx][size - 1] = value;
+    }
+
+    /**
+     * Appends all the samples of the given columns, they should have the same channels.
+     */
+    void addAll(TelemetryColumns other) {
+        if (!Arrays.equals(channelNames, other.channelNames)) {
+            throw new IllegalArgumentException("Cannot add columns of different channels");
+        }
+        while (time.length < size + other.size) {
+            grow();
+        }
+        System.arraycopy(other.time, 0, time, size, other.size);
+        System.arraycopy(other.latitude, 0, latitude, size, other.size);
+        System.arraycopy(other.longitude, 0, longitude, size, other.size);
+        System.arraycopy(other.speed, 0, speed, size, other.size);
+        for (int i = 0; i < channels.length; i++) {
+            System.arraycopy(other.channels[i], 0, channels[i], size, other.size);
+        }
+        size += other.size;
+    }
+
+    /**
+     * @param gpsDataInterval the data sampling interval in milliseconds
+     * @return a session with the samples added so far
+     */
+    TelemetrySession toSession(long gpsDataInterval) {
+        final Map<String, double[]> channelColumns = new LinkedHashMap<>();
+        for (int i = 0; i < channelNames.length; i++) {
+            channelColumns.put(channelNames[i], Arrays.copyOf(channels[i], size));
+        }
+        return new TelemetrySession(size, gpsDataInterval,
+                Arrays.copyOf(time, size), Arrays.copyOf(latitude, size),
+                Arrays.copyOf(longitude, size), Arrays.copyOf(speed, size),
+                channelColumns);
+    }
+
+    /**
+     * Creates a session on top of the columns, without copying them. The session stays valid while more samples are
+     * added, since the samples it sees are never modified.
+     *
+     * @return a session with the samples added so far, without a data interval and the additional channels
+     */
+    TelemetrySession toPartialSession() {
+        return new TelemetrySession(size, 0, time, latitude, longitude, speed,
+                Collections.<String, double[]>emptyMap());
+    }
+
+    private void grow() {
+        final int capacity = time.length * 2;
+        time = Arrays.copyOf(time, capacity);
+        latitude = Arrays.copyOf(latitude, capacity);
+        longitude = Arrays.copyOf(longitude, capacity);
+        speed = Arrays.copyOf(speed, capacity);
+        for (int i = 0; i < channels.length; i++) {
+            channels[i] = Arrays.copyOf(channels[i], capacity);
+        }
+    }
+}
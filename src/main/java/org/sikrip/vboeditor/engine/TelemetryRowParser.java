@@ -0,0 +1,81 @@
+package org.sikrip.vboeditor.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Parses tokenized data lines into {@link TelemetryColumns}, based on the column layout of a vbo header.
+ * <p>
+ * Only lines with a valid position (satellites present and non zero coordinates) are kept.
+ * The parser has no state of its own, so it can be shared by threads that use their own tokenizers and columns.
+ */
+final class TelemetryRowParser {
+
+    private final int timeIdx;
+    private final int satellitesIdx;
+    private final int latitudeIdx;
+    private final int longitudeIdx;
+    private final int speedIdx;
+    private final List<String> channelNames = new ArrayList<>();
+    private final int[] channelIndexes;
+
+    TelemetryRowParser(List<String> header) {
+        timeIdx = header.indexOf("time");
+        satellitesIdx = header.indexOf("satellites");
+        latitudeIdx = header.indexOf("latitude");
+        longitudeIdx = header.indexOf("longitude");
+        speedIdx = header.indexOf("velocity kmh");
+
+        channelIndexes = new int[header.size()];
+        for (int i = 0; i < header.size(); i++) {
+            final String name = header.get(i);
+            if (i != timeIdx && i != latitudeIdx && i != longitudeIdx && i != speedIdx
+                    && !channelNames.contains(name)) {
+                channelIndexes[channelNames.size()] = i;
+                channelNames.add(name);
+            }
+        }
+    }
+
+    int getTimeIdx() {
+        return timeIdx;
+    }
+
+    TelemetryColumns newColumns() {
+        return new TelemetryColumns(channelNames);
+    }
+
+    /**
+     * @param initialCapacity the number of samples that can be added before the columns grow
+     */
+    TelemetryColumns newColumns(int initialCapacity) {
+        return new TelemetryColumns(channelNames, initialCapacity);
+    }
+
+    /**
+     * Adds the tokenized line to the given columns if it has a valid position.
+     */
+    void parse(VboLineTokenizer tokenizer, TelemetryColumns columns) {
+        final double latitude = tokenizer.getDouble(latitudeIdx);
+        final double longitude = tokenizer.getDouble(longitudeIdx);
+        if (tokenizer.getInt(satellitesIdx) > 0 && latitude != 0 && longitude != 0) {
+            final long time = tokenizer.getTimeMillis(timeIdx);
+            final double speed = tokenizer.getDouble(speedIdx);
+            columns.add(time, latitude, longitude, speed);
+            for (int i = 0; i < columns.getChannelCount(); i++) {
+                columns.setChannelValue(i, parseChannelValue(tokenizer, channelIndexes[i]));
+            }
+        }
+    }
+
+    private static double parseChannelValue(VboLineTokenizer tokenizer, int idx) {
+        if (idx >= tokenizer.getFieldCount()) {
+            return Double.NaN;
+        }
+        try {
+            return tokenizer.getDouble(idx);
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+}
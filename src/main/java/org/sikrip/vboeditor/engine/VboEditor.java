@@ -2,30 +2,42 @@ package org.sikrip.vboeditor.engine;
 
 import com.google.common.base.Strings;
 import com.google.common.collect.Lists;
-import org.apache.commons.io.FileUtils;
+import org.sikrip.vboeditor.model.TelemetrySession;
 import org.sikrip.vboeditor.model.TraveledRouteCoordinate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
-import static org.sikrip.vboeditor.engine.VboIOUtils.readVboSections;
 import static org.sikrip.vboeditor.engine.VboIOUtils.writeSection;
 import static org.sikrip.vboeditor.engine.VboUtils.AVIFILEINDEX;
 import static org.sikrip.vboeditor.engine.VboUtils.AVISYNCTIME;
 import static org.sikrip.vboeditor.engine.VboUtils.COLUMN_NAMES_SECTION;
 import static org.sikrip.vboeditor.engine.VboUtils.DATA_SECTION;
 import static org.sikrip.vboeditor.engine.VboUtils.DATA_SEPARATORS;
+import static org.sikrip.vboeditor.engine.VboUtils.GPS_DATA_INTERVAL_LINES;
 import static org.sikrip.vboeditor.engine.VboUtils.HEADER_SECTION;
-import static org.sikrip.vboeditor.engine.VboUtils.convertToMillis;
-import static org.sikrip.vboeditor.engine.VboUtils.getDataLines;
 import static org.sikrip.vboeditor.engine.VboUtils.getDataSeparator;
 import static org.sikrip.vboeditor.engine.VboUtils.getGpsDataInterval;
 
@@ -37,11 +49,71 @@ public final class VboEditor {
     private static final String NO_VIDEO_SYNCH_TIME = "-00000001";
     private static final String FINAL_VBO_FILE_SUFFIX = "Data.vbo";
     private static final String AVI_SECTION = "[avi]";
+    // the data lines written between progress updates
+    private static final int PROGRESS_LINES = 4096;
+    // the bytes of the video copied between progress updates
+    private static final long VIDEO_TRANSFER_CHUNK = 64L * 1024 * 1024;
+    // the sections of the final vbo file, in order, the data section follows
+    private static final String[] FINAL_VBO_SECTIONS = {
+            HEADER_SECTION, "[comments]", "[channel units]", "[session data]", "[laptiming]", AVI_SECTION,
+            COLUMN_NAMES_SECTION
+    };
+
+    private static final TelemetrySessionCache SESSION_CACHE = TelemetrySessionCache.fromSystemProperties();
 
     public enum VideoType {
         MP4, AVI
     }
 
+    /**
+     * How the video file of a session is created from the original video.
+     */
+    public enum VideoPlacement {
+        /**
+         * Copies the original video.
+         */
+        COPY,
+        /**
+         * Creates a hard link to the original video, both should be on the same file system.
+         */
+        HARD_LINK,
+        /**
+         * Creates a symbolic link to the original video, moving or deleting the original breaks the session.
+         */
+        SYMBOLIC_LINK,
+        /**
+         * Moves the original video, atomically when both are on the same file system.
+         */
+        MOVE
+    }
+
+    /**
+     * Receives the progress of long running operations.
+     */
+    public interface ProgressListener {
+
+        /**
+         * @param done  the work done so far
+         * @param total the total work
+         */
+        void progress(long done, long total);
+    }
+
+    /**
+     * Receives the samples of a telemetry file while it is being read.
+     */
+    public interface TelemetryLoadListener {
+
+        /**
+         * Called on the loading thread as the rows are read, in file order.
+         *
+         * @param partialSession the samples read so far, without the data interval and the additional channels
+         * @param rows           the rows read so far
+         * @param rowCount       the rows of the file
+         */
+        void loaded(TelemetrySession partialSession, long rows, long rowCount);
+    }
+
     private VboEditor() {/*hidden*/}
 
     /**
@@ -50,39 +122,99 @@ public final class VboEditor {
      * @param vboFilePath the telemetry file
      * @return a list of {@link TraveledRouteCoordinate}s depicting the traveled route of the given vbo file.
      * @throws IOException when the telemetry file cannot be read
+     * @see #getTelemetrySession(String)
      */
     public static List<TraveledRouteCoordinate> getTraveledRoute(String vboFilePath) throws IOException {
-        final Map<String, List<String>> vboSections = readVboSections(vboFilePath);
-        final String dataSeparator = getDataSeparator(vboSections);
+        final TelemetrySession session = getTelemetrySession(vboFilePath);
+        final List<TraveledRouteCoordinate> coordinates = new ArrayList<>(session.getSize());
+        for (int i = 0; i < session.getSize(); i++) {
+            coordinates.add(new TraveledRouteCoordinate(session.getLatitude(i), session.getLongitude(i),
+                    session.getTime(i), session.getSpeed(i), session.getGpsDataInterval()));
+        }
+        return coordinates;
+    }
 
-        if (Strings.isNullOrEmpty(dataSeparator)) {
-            throw new IllegalArgumentException("Cannot determine data separator (check vbo file for corruption)");
+    /**
+     * Gets the samples of the given vbo file that have a valid position, in columnar form.
+     * Every header entry other than time, latitude, longitude and speed is exposed as an additional channel.
+     * Parsed sessions are kept in the {@link TelemetrySessionCache} so reloading an unchanged file is cheap.
+     *
+     * @param vboFilePath the telemetry file
+     * @return the {@link TelemetrySession} of the given vbo file
+     * @throws IOException when the telemetry file cannot be read
+     */
+    public static TelemetrySession getTelemetrySession(String vboFilePath) throws IOException {
+        return getTelemetrySession(vboFilePath, null);
+    }
+
+    /**
+     * Gets the samples of the given vbo file like {@link #getTelemetrySession(String)}, passing the samples read so
+     * far to the given listener. A cached session is passed to the listener as a whole.
+     *
+     * @param vboFilePath  the telemetry file
+     * @param loadListener receives the samples while the file is read, may be null
+     * @return the {@link TelemetrySession} of the given vbo file
+     * @throws IOException when the telemetry file cannot be read or the thread is interrupted while reading it
+     */
+    public static TelemetrySession getTelemetrySession(String vboFilePath, TelemetryLoadListener loadListener)
+            throws IOException {
+        if (SESSION_CACHE == null) {
+            return parseTelemetrySession(vboFilePath, loadListener);
+        }
+        try {
+            final TelemetrySession cachedSession = SESSION_CACHE.get(vboFilePath);
+            if (cachedSession != null) {
+                if (loadListener != null) {
+                    loadListener.loaded(cachedSession, cachedSession.getSize(), cachedSession.getSize());
+                }
+                return cachedSession;
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Cannot read cached session of " + vboFilePath, e);
+        }
+        final TelemetrySession session = parseTelemetrySession(vboFilePath, loadListener);
+        try {
+            SESSION_CACHE.put(vboFilePath, session);
+        } catch (IOException e) {
+            LOGGER.warn("Cannot cache session of " + vboFilePath, e);
         }
-        final int gpsDataInterval = getGpsDataInterval(vboSections, dataSeparator);
+        return session;
+    }
 
-        final List<String> header = vboSections.get(HEADER_SECTION);
-        final int timeIdx = header.indexOf("time");
-        final int satellitesIdx = header.indexOf("satellites");
-        final int latitudeIdx = header.indexOf("latitude");
-        final int longitudeIdx = header.indexOf("longitude");
-        final int speedIdx = header.indexOf("velocity kmh");
+    private static TelemetrySession parseTelemetrySession(String vboFilePath, final TelemetryLoadListener loadListener)
+            throws IOException {
+        try (final MappedVboFile vboFile = MappedVboFile.open(vboFilePath)) {
+            if (vboFile.getHeader().isEmpty() || !vboFile.hasDataSection()) {
+                throw new IllegalArgumentException("Cannot find header or data section (check vbo file for corruption)");
+            }
+            if (vboFile.getRowCount() == 0) {
+                throw new IllegalArgumentException("Data sample to small");
+            }
+            final TelemetryRowParser rowParser = new TelemetryRowParser(vboFile.getHeader());
+            final TelemetryColumns columns;
+            if (loadListener == null) {
+                columns = ParallelTelemetryLoader.load(vboFile, rowParser);
+            } else {
+                columns = ParallelTelemetryLoader.load(vboFile, rowParser,
+                        (loadedColumns, rows, rowCount) -> loadListener.loaded(loadedColumns.toPartialSession(),
+                                rows, rowCount));
+            }
 
-        final List<TraveledRouteCoordinate> coordinates = new ArrayList<>();
-        for (String dataLine : vboSections.get(DATA_SECTION)) {
-            final String[] data = dataLine.split(dataSeparator);
-            final Double latitude = Double.valueOf(data[latitudeIdx]);
-            final Double longitude = Double.valueOf(data[longitudeIdx]);
-            if (Integer.valueOf(data[satellitesIdx]) > 0 && latitude != 0 && longitude != 0) {
-                final long time = convertToMillis(data[timeIdx]);
-                final Double speed = Double.valueOf(data[speedIdx]);
-                coordinates.add(new TraveledRouteCoordinate(latitude, longitude, time, speed, gpsDataInterval));
+            final SampleIntervalEstimator intervalEstimator = new SampleIntervalEstimator();
+            for (int i = 0; i < columns.getSize(); i++) {
+                intervalEstimator.add(columns.getTime(i));
+            }
+            final int gpsDataInterval = getGpsDataInterval(intervalEstimator);
+            if (intervalEstimator.getDropoutCount() > 0 || intervalEstimator.getRateChangeCount() > 0) {
+                LOGGER.info("{} has {} dropouts and {} rate changes, the data interval is {} ms", vboFilePath,
+                        intervalEstimator.getDropoutCount(), intervalEstimator.getRateChangeCount(), gpsDataInterval);
             }
+            return columns.toSession(gpsDataInterval);
         }
-        return coordinates;
     }
 
     /**
-     * Creates a video file that can be used for video/data analysis on Circuit Tools.
+     * Creates a video file that can be used for video/data analysis on Circuit Tools, by copying the original video.
      *
      * @param outputDirBasePath the path of the working directory for the output files
      * @param originalVideoPath the path of the original file video
@@ -90,15 +222,239 @@ public final class VboEditor {
      */
     public static void createVideoFile(String outputDirBasePath, String originalVideoPath, String sessionName)
             throws IOException {
-        if (createOutputDirectory(outputDirBasePath + "/" + sessionName)) {
-            final String videoExtension = originalVideoPath.substring(originalVideoPath.lastIndexOf('.'));
-            final File sourceVideo = new File(originalVideoPath);
-            final File finalVideo = new File(
-                    outputDirBasePath + "/" + sessionName + "/" + sessionName + VIDEO_FILE_SUFFIX + videoExtension);
-            FileUtils.copyFile(sourceVideo, finalVideo);
-        } else {
+        createVideoFile(outputDirBasePath, originalVideoPath, sessionName, VideoPlacement.COPY, null);
+    }
+
+    /**
+     * Creates a video file that can be used for video/data analysis on Circuit Tools.
+     * <p>
+     * When the video cannot be linked or moved with the given placement (e.g. the output directory is on another
+     * file system) it is copied instead.
+     *
+     * @param outputDirBasePath the path of the working directory for the output files
+     * @param originalVideoPath the path of the original file video
+     * @param sessionName       the name of the session
+     * @param placement         how the video file is created
+     * @param progressListener  notified with the bytes of the video placed so far, may be null
+     */
+    public static void createVideoFile(String outputDirBasePath, String originalVideoPath, String sessionName,
+                                       VideoPlacement placement, ProgressListener progressListener)
+            throws IOException {
+        if (!createOutputDirectory(outputDirBasePath + "/" + sessionName)) {
             throw new RuntimeException("Could not create output directory");
         }
+        final Path sourceVideo = Paths.get(originalVideoPath);
+        final Path finalVideo = getFinalVideoPath(outputDirBasePath, originalVideoPath, sessionName);
+        final long videoSize = Files.size(sourceVideo);
+
+        if (Files.exists(finalVideo)) {
+            if (Files.isSameFile(sourceVideo, finalVideo)) {
+                // already linked by a previous run
+                notifyProgress(progressListener, videoSize, videoSize);
+                return;
+            }
+            Files.delete(finalVideo);
+        }
+        if (placement != VideoPlacement.COPY) {
+            try {
+                switch (placement) {
+                    case HARD_LINK:
+                        Files.createLink(finalVideo, sourceVideo);
+                        break;
+                    case SYMBOLIC_LINK:
+                        Files.createSymbolicLink(finalVideo, sourceVideo.toAbsolutePath());
+                        break;
+                    case MOVE:
+                        Files.move(sourceVideo, finalVideo, StandardCopyOption.ATOMIC_MOVE);
+                        break;
+                }
+                notifyProgress(progressListener, videoSize, videoSize);
+                return;
+            } catch (IOException | UnsupportedOperationException e) {
+                LOGGER.warn("Cannot place the video with {} ({}), copying it", placement, e.toString());
+            }
+        }
+        copyVideo(sourceVideo, finalVideo, videoSize, progressListener);
+        if (placement == VideoPlacement.MOVE) {
+            Files.delete(sourceVideo);
+        }
+    }
+
+    /**
+     * Creates the vbo file with video metadata and the video file of a session concurrently.
+     * <p>
+     * When either fails, or the calling thread is interrupted, the other is interrupted too and the files created
+     * so far are removed (a moved video is moved back).
+     *
+     * @param outputDirBasePath the path of the working directory for the output files
+     * @param originalVboPath   the path of the original vbo file
+     * @param originalVideoPath the path of the original video file
+     * @param videoType         the type of the video (AVI or MP4)
+     * @param sessionName       the name of the session
+     * @param gpsDataOffset     the offset of the gps data start time relative to the video, see
+     *                          {@link #createVboWithVideoMetadata(String, String, VideoType, String, int)}
+     * @param placement         how the video file is created
+     * @param progressListener  notified with the bytes of both original files processed so far, from the threads
+     *                          of the two jobs, may be null
+     * @throws IOException          if a file related error occurs
+     * @throws InterruptedException when the calling thread is interrupted
+     */
+    public static void createSessionFiles(final String outputDirBasePath, final String originalVboPath,
+            final String originalVideoPath, final VideoType videoType, final String sessionName,
+            final int gpsDataOffset, final VideoPlacement placement, final ProgressListener progressListener)
+            throws IOException, InterruptedException {
+        final long totalBytes = Files.size(Paths.get(originalVboPath)) + Files.size(Paths.get(originalVideoPath));
+        final AtomicLong vboBytesDone = new AtomicLong();
+        final AtomicLong videoBytesDone = new AtomicLong();
+
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        final CompletionService<Void> completionService = new ExecutorCompletionService<>(executor);
+        final Future<Void> vboJob = completionService.submit(new Callable<Void>() {
+            @Override
+            public Void call() throws IOException {
+                createVboWithVideoMetadata(outputDirBasePath, originalVboPath, videoType, sessionName, gpsDataOffset,
+                        new ProgressListener() {
+                            @Override
+                            public void progress(long done, long total) {
+                                vboBytesDone.set(done);
+                                notifyProgress(progressListener, done + videoBytesDone.get(), totalBytes);
+                            }
+                        });
+                return null;
+            }
+        });
+        final Future<Void> videoJob = completionService.submit(new Callable<Void>() {
+            @Override
+            public Void call() throws IOException {
+                createVideoFile(outputDirBasePath, originalVideoPath, sessionName, placement,
+                        new ProgressListener() {
+                            @Override
+                            public void progress(long done, long total) {
+                                videoBytesDone.set(done);
+                                notifyProgress(progressListener, vboBytesDone.get() + done, totalBytes);
+                            }
+                        });
+                return null;
+            }
+        });
+        executor.shutdown();
+
+        boolean completed = false;
+        try {
+            for (int i = 0; i < 2; i++) {
+                completionService.take().get();
+            }
+            completed = true;
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        } finally {
+            if (!completed) {
+                executor.shutdownNow();
+                // the partial files are removed once both jobs have stopped
+                awaitTerminationUninterruptibly(executor);
+                removeSessionFiles(outputDirBasePath, originalVideoPath, sessionName, placement,
+                        isCompleted(videoJob));
+            }
+        }
+    }
+
+    private static void awaitTerminationUninterruptibly(ExecutorService executor) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                if (executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                    break;
+                }
+                LOGGER.warn("Still waiting for the session files jobs to stop");
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static boolean isCompleted(Future<?> job) {
+        if (!job.isDone() || job.isCancelled()) {
+            return false;
+        }
+        try {
+            job.get();
+            return true;
+        } catch (InterruptedException | ExecutionException e) {
+            return false;
+        }
+    }
+
+    private static void removeSessionFiles(String outputDirBasePath, String originalVideoPath, String sessionName,
+                                           VideoPlacement placement, boolean videoPlaced) {
+        final Path finalVbo = getFinalVboPath(outputDirBasePath, sessionName);
+        final Path finalVideo = getFinalVideoPath(outputDirBasePath, originalVideoPath, sessionName);
+        try {
+            Files.deleteIfExists(finalVbo);
+        } catch (IOException e) {
+            LOGGER.warn("Cannot delete partial vbo file " + finalVbo, e);
+        }
+        try {
+            if (videoPlaced && placement == VideoPlacement.MOVE) {
+                Files.move(finalVideo, Paths.get(originalVideoPath));
+            } else if (placement == VideoPlacement.MOVE && !Files.exists(Paths.get(originalVideoPath))) {
+                // never delete the only copy of the video
+                LOGGER.warn("Keeping video {}, the original {} is missing", finalVideo, originalVideoPath);
+            } else {
+                Files.deleteIfExists(finalVideo);
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Cannot remove video file " + finalVideo, e);
+        }
+    }
+
+    private static Path getFinalVboPath(String outputDirBasePath, String sessionName) {
+        return Paths.get(outputDirBasePath, sessionName, sessionName + FINAL_VBO_FILE_SUFFIX);
+    }
+
+    private static Path getFinalVideoPath(String outputDirBasePath, String originalVideoPath, String sessionName) {
+        final String videoExtension = originalVideoPath.substring(originalVideoPath.lastIndexOf('.'));
+        return Paths.get(outputDirBasePath, sessionName, sessionName + VIDEO_FILE_SUFFIX + videoExtension);
+    }
+
+    private static void copyVideo(Path sourceVideo, Path finalVideo, long videoSize,
+                                  ProgressListener progressListener) throws IOException {
+        boolean copied = false;
+        try (final FileChannel source = FileChannel.open(sourceVideo, StandardOpenOption.READ);
+             final FileChannel target = FileChannel.open(finalVideo, StandardOpenOption.CREATE_NEW,
+                     StandardOpenOption.WRITE)) {
+            long position = 0;
+            while (position < videoSize) {
+                // the channels may transfer less than requested
+                position += source.transferTo(position, Math.min(VIDEO_TRANSFER_CHUNK, videoSize - position), target);
+                notifyProgress(progressListener, position, videoSize);
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedIOException("Video copy interrupted");
+                }
+            }
+            copied = true;
+        } finally {
+            if (!copied) {
+                Files.deleteIfExists(finalVideo);
+            }
+        }
+        Files.setLastModifiedTime(finalVideo, Files.getLastModifiedTime(sourceVideo));
+    }
+
+    private static void notifyProgress(ProgressListener progressListener, long done, long total) {
+        if (progressListener != null) {
+            progressListener.progress(done, total);
+        }
     }
 
     /**
@@ -118,95 +474,152 @@ public final class VboEditor {
     public static void createVboWithVideoMetadata(String outputDirBasePath, String originalVboPath,
             VideoType videoType, String sessionName, int gpsDataOffset)
             throws IOException {
+        createVboWithVideoMetadata(outputDirBasePath, originalVboPath, videoType, sessionName, gpsDataOffset, null);
+    }
 
-        final Map<String, List<String>> vboSections = readVboSections(originalVboPath);
+    /**
+     * Same as {@link #createVboWithVideoMetadata(String, String, VideoType, String, int)}, reporting the bytes of the
+     * original vbo file processed so far.
+     * <p>
+     * The thread is checked for interruption while the data lines are written, an {@link InterruptedIOException}
+     * is thrown when it is interrupted.
+     *
+     * @param progressListener notified with the bytes of the original vbo file processed, may be null
+     */
+    public static void createVboWithVideoMetadata(String outputDirBasePath, String originalVboPath,
+            VideoType videoType, String sessionName, int gpsDataOffset, ProgressListener progressListener)
+            throws IOException {
 
-        final List<String> headerData = vboSections.get(HEADER_SECTION);
-        final int aviIndexPosition = headerData.indexOf(AVIFILEINDEX);
-        if (aviIndexPosition > -1) {
-            LOGGER.warn("Source vbo file already contains AVIFILEINDEX information. AVIFILEINDEX data will be replaced in the new file.");
-        } else {
-            headerData.add(AVIFILEINDEX);
-        }
-        final int aviSyncPosition = headerData.indexOf(AVISYNCTIME);
-        if (aviSyncPosition > -1) {
-            LOGGER.warn("Source vbo file already contains AVISYNCTIME information. AVISYNCTIME data will be replaced in the new file.");
-        } else  {
-            headerData.add(AVISYNCTIME);
-        }
-        final String dataSeparator = getDataSeparator(vboSections);
-        if (Strings.isNullOrEmpty(dataSeparator)) {
-            throw new RuntimeException(
-                    String.format("Could not find data separator. Supported separators are %s", DATA_SEPARATORS));
-        }
+        try (final VboReader vboReader = new VboReader(originalVboPath)) {
+            final Map<String, List<String>> vboSections = vboReader.getSections();
 
-        // add column names
-        final List<String> columnNamesSection = vboSections.get(COLUMN_NAMES_SECTION);
-        if (columnNamesSection != null && !columnNamesSection.isEmpty()) {
-            // Make sure column names for video data are in place
-            final String columnNames = columnNamesSection.get(0).replaceAll(AVIFILEINDEX, "").replaceAll(AVISYNCTIME, "").trim();
-            columnNamesSection.set(0, columnNames + dataSeparator + AVIFILEINDEX + dataSeparator + AVISYNCTIME);
-        }
+            final List<String> headerData = vboSections.get(HEADER_SECTION);
+            if (headerData == null || !vboReader.hasDataSection()) {
+                throw new IllegalArgumentException("Cannot find header or data section (check vbo file for corruption)");
+            }
+            final int aviIndexPosition = headerData.indexOf(AVIFILEINDEX);
+            if (aviIndexPosition > -1) {
+                LOGGER.warn("Source vbo file already contains AVIFILEINDEX information. AVIFILEINDEX data will be replaced in the new file.");
+            } else {
+                headerData.add(AVIFILEINDEX);
+            }
+            final int aviSyncPosition = headerData.indexOf(AVISYNCTIME);
+            if (aviSyncPosition > -1) {
+                LOGGER.warn("Source vbo file already contains AVISYNCTIME information. AVISYNCTIME data will be replaced in the new file.");
+            } else  {
+                headerData.add(AVISYNCTIME);
+            }
+            // the leading lines are needed for the data separator and interval
+            final List<String> leadingDataLines = vboReader.peekDataLines(GPS_DATA_INTERVAL_LINES);
+            final String dataSeparator = leadingDataLines.isEmpty() ? null : getDataSeparator(leadingDataLines.get(0));
+            if (Strings.isNullOrEmpty(dataSeparator)) {
+                throw new RuntimeException(
+                        String.format("Could not find data separator. Supported separators are %s", DATA_SEPARATORS));
+            }
+            final int gpsDataInterval = getGpsDataInterval(leadingDataLines, headerData.indexOf("time"), dataSeparator);
 
-        // add avi section
-        vboSections.put(AVI_SECTION, Lists.newArrayList(sessionName, videoType.name()));
+            // add column names
+            final List<String> columnNamesSection = vboSections.get(COLUMN_NAMES_SECTION);
+            if (columnNamesSection != null && !columnNamesSection.isEmpty()) {
+                // Make sure column names for video data are in place
+                final String columnNames = columnNamesSection.get(0).replaceAll(AVIFILEINDEX, "").replaceAll(AVISYNCTIME, "").trim();
+                columnNamesSection.set(0, columnNames + dataSeparator + AVIFILEINDEX + dataSeparator + AVISYNCTIME);
+            }
 
-        // add video metadata
-        final List<String> dataLines = getDataLines(vboSections, dataSeparator, aviIndexPosition, aviSyncPosition);
-        final int gpsDataInterval = getGpsDataInterval(vboSections, dataSeparator);
+            // add avi section
+            vboSections.put(AVI_SECTION, Lists.newArrayList(sessionName, videoType.name()));
 
-        int logLine = 0;
+            // Create the final vbo file
+            if (!createOutputDirectory(outputDirBasePath + "/" + sessionName)) {
+                throw new RuntimeException("Cannot create output directory");
+            }
+            final Path finalVboPath = getFinalVboPath(outputDirBasePath, sessionName);
+            try (final VboLineWriter writer = new VboLineWriter(FileChannel.open(finalVboPath,
+                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE))) {
+                writer.write(String.format("File created on %s using VBO Editor", new Date())).newLine();
+                final List<String> writtenSections = new ArrayList<>();
+                for (String sectionName : FINAL_VBO_SECTIONS) {
+                    if (vboSections.containsKey(sectionName)) {
+                        writeSection(vboSections, writer, sectionName);
+                        writtenSections.add(sectionName);
+                    }
+                }
+                writer.write(DATA_SECTION).newLine();
+                writeDataLinesWithVideoMetadata(vboReader, writer, dataSeparator, aviIndexPosition, aviSyncPosition,
+                        gpsDataInterval, gpsDataOffset, progressListener);
+                writer.newLine();
+
+                // sections that followed the data section in the original file are read along with the data
+                for (String sectionName : FINAL_VBO_SECTIONS) {
+                    if (!writtenSections.contains(sectionName)) {
+                        writeSection(vboSections, writer, sectionName);
+                    }
+                }
+            }
+            notifyProgress(progressListener, vboReader.getSize(), vboReader.getSize());
+        }
+    }
+
+    /**
+     * Writes the data lines without their old video metadata, followed by the video file index and the offset of the
+     * line relative to the video.
+     */
+    private static void writeDataLinesWithVideoMetadata(VboReader vboReader, VboLineWriter writer,
+            String dataSeparator, int aviIndexPosition, int aviSyncPosition, int gpsDataInterval, int gpsDataOffset,
+            ProgressListener progressListener) throws IOException {
         int numberOfInvalidLogLines = 0;
         int firstValidOffset = 0;
         if (gpsDataOffset < 0) {
             // GPS data start before video
             numberOfInvalidLogLines = Math.abs(gpsDataOffset) / gpsDataInterval;
             firstValidOffset = Math.abs(gpsDataOffset) % gpsDataInterval;
-            for (; logLine < numberOfInvalidLogLines; logLine++) {
-                final String initialData = dataLines.get(logLine);
-                final String finalData =
-                        initialData + dataSeparator + VIDEO_FILE_SUFFIX + dataSeparator + NO_VIDEO_SYNCH_TIME;
-                dataLines.set(logLine, finalData);
-            }
         }
 
-        for (; logLine < dataLines.size(); logLine++) {
-            final String initialData = dataLines.get(logLine);
-            final int logLineOffsetMS;
-            if (gpsDataOffset < 0) {
-                // GPS data start before video
-                logLineOffsetMS = firstValidOffset + (logLine - numberOfInvalidLogLines) * gpsDataInterval;
+        final VboLineTokenizer tokenizer = new VboLineTokenizer(dataSeparator);
+        final StringBuilder lineBuilder = new StringBuilder();
+        String dataLine;
+        for (int logLine = 0; (dataLine = vboReader.readDataLine()) != null; logLine++) {
+            if (logLine % PROGRESS_LINES == 0) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedIOException("Vbo file creation interrupted");
+                }
+                notifyProgress(progressListener, vboReader.getPosition(), vboReader.getSize());
+            }
+            tokenizer.reset(dataLine);
+            lineBuilder.setLength(0);
+            for (int i = 0; i < tokenizer.getFieldCount(); i++) {
+                if (i != aviIndexPosition && i != aviSyncPosition) {
+                    // add all data except the avi related
+                    if (lineBuilder.length() > 0) {
+                        lineBuilder.append(dataSeparator);
+                    }
+                    lineBuilder.append(dataLine, tokenizer.getFieldStart(i), tokenizer.getFieldEnd(i));
+                }
+            }
+            // trimmed like String.trim()
+            int start = 0;
+            int end = lineBuilder.length();
+            while (start < end && lineBuilder.charAt(start) <= ' ') {
+                start++;
+            }
+            while (end > start && lineBuilder.charAt(end - 1) <= ' ') {
+                end--;
+            }
+            writer.write(lineBuilder, start, end).write(dataSeparator).write(VIDEO_FILE_SUFFIX).write(dataSeparator);
+
+            if (logLine < numberOfInvalidLogLines) {
+                writer.write(NO_VIDEO_SYNCH_TIME);
             } else {
-                logLineOffsetMS = gpsDataOffset + logLine * gpsDataInterval;
-            }
-            final String finalData = String
-                    .format(initialData + dataSeparator + VIDEO_FILE_SUFFIX + dataSeparator + "%1$08d",
-                            logLineOffsetMS);
-            dataLines.set(logLine, finalData);
-        }
-        // Update the data section with the lines containing the video data
-        vboSections.put(DATA_SECTION, dataLines);
-
-        // Create the final vbo file
-        if (createOutputDirectory(outputDirBasePath + "/" + sessionName)) {
-            try (final BufferedWriter writer = new BufferedWriter(
-                    new FileWriter(
-                            outputDirBasePath + "/" + sessionName + "/" + sessionName + FINAL_VBO_FILE_SUFFIX))) {
-                writer.write(String.format("File created on %s using VBO Editor", new Date()));
-                writer.newLine();
-                writeSection(vboSections, writer, HEADER_SECTION);
-                writeSection(vboSections, writer, "[comments]");
-                //
-                writeSection(vboSections, writer, "[channel units]");
-                writeSection(vboSections, writer, "[session data]");
-                writeSection(vboSections, writer, "[laptiming]");
-                //
-                writeSection(vboSections, writer, AVI_SECTION);
-                writeSection(vboSections, writer, COLUMN_NAMES_SECTION);
-                writeSection(vboSections, writer, DATA_SECTION);
-            }
-        } else {
-            throw new RuntimeException("Cannot create output directory");
+                final int logLineOffsetMS;
+                if (gpsDataOffset < 0) {
+                    // GPS data start before video
+                    logLineOffsetMS = firstValidOffset + (logLine - numberOfInvalidLogLines) * gpsDataInterval;
+                } else {
+                    logLineOffsetMS = gpsDataOffset + logLine * gpsDataInterval;
+                }
+                writer.writeInt(logLineOffsetMS, 8);
+            }
+            writer.newLine();
         }
     }
 
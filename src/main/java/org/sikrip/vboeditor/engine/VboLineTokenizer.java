@@ -0,0 +1,343 @@
+package org.sikrip.vboeditor.engine;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+/**
+ * Splits vbo data lines into fields and parses the field values into primitives without allocating.
+ * <p>
+ * The fields are identified as {@link String#split(String)} would for the single character separators
+ * of {@link VboUtils#DATA_SEPARATORS}, so field indexes are interchangeable between the two.
+ * The tokenizer keeps the offsets of the last line only and is not thread safe.
+ */
+final class VboLineTokenizer {
+
+    // 10^22 is the largest power of ten that is exactly representable as a double
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    // doubles represent all the integers up to 2^53 exactly
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+    private static final int MAX_MANTISSA_DIGITS = 18;
+    // decimals of up to 15 significant digits survive a round trip through a double
+    private static final int MAX_EXACT_DECIMAL_DIGITS = 15;
+
+    private final char separator;
+    private CharSequence line;
+    private int[] fieldStarts = new int[32];
+    private int[] fieldEnds = new int[32];
+    private int fieldCount;
+
+    /**
+     * @param dataSeparator the data separator, one of {@link VboUtils#DATA_SEPARATORS}
+     */
+    VboLineTokenizer(String dataSeparator) {
+        if (dataSeparator == null || dataSeparator.length() != 1) {
+            throw new IllegalArgumentException(String.format("Unsupported data separator '%s'", dataSeparator));
+        }
+        separator = dataSeparator.charAt(0);
+    }
+
+    /**
+     * Tokenizes the given line, the offsets of the previous line are discarded.
+     *
+     * @param dataLine the line to tokenize
+     * @return this tokenizer
+     */
+    VboLineTokenizer reset(CharSequence dataLine) {
+        line = dataLine;
+        fieldCount = 0;
+        final int length = dataLine.length();
+        int fieldStart = 0;
+        for (int i = 0; i < length; i++) {
+            if (dataLine.charAt(i) == separator) {
+                addField(fieldStart, i);
+                fieldStart = i + 1;
+            }
+        }
+        addField(fieldStart, length);
+
+        // trailing empty fields are dropped, same as String.split
+        while (fieldCount > 0 && fieldStarts[fieldCount - 1] == fieldEnds[fieldCount - 1]) {
+            fieldCount--;
+        }
+        if (length == 0) {
+            // an empty line has one empty field
+            fieldCount = 1;
+        }
+        return this;
+    }
+
+    CharSequence getLine() {
+        return line;
+    }
+
+    int getFieldCount() {
+        return fieldCount;
+    }
+
+    int getFieldStart(int field) {
+        return fieldStarts[checkField(field)];
+    }
+
+    int getFieldEnd(int field) {
+        return fieldEnds[checkField(field)];
+    }
+
+    double getDouble(int field) {
+        return parseDouble(line, getFieldStart(field), getFieldEnd(field));
+    }
+
+    int getInt(int field) {
+        return parseInt(line, getFieldStart(field), getFieldEnd(field));
+    }
+
+    /**
+     * @return the value of the field multiplied by 10^scale, truncated to an int
+     * @see #parseScaledInt(CharSequence, int, int, int)
+     */
+    int getScaledInt(int field, int scale) {
+        return parseScaledInt(line, getFieldStart(field), getFieldEnd(field), scale);
+    }
+
+    /**
+     * @return the value of a vbo time field in milliseconds
+     * @see #parseVboTime(CharSequence, int, int)
+     */
+    long getTimeMillis(int field) {
+        return parseVboTime(line, getFieldStart(field), getFieldEnd(field));
+    }
+
+    /**
+     * @return the value of the field as a String (allocates, use for error reporting)
+     */
+    String getString(int field) {
+        return line.subSequence(getFieldStart(field), getFieldEnd(field)).toString();
+    }
+
+    /**
+     * Parses a decimal number such as +02279.25223 or -3.90000E+00, both '.' and ',' are accepted as the decimal
+     * point.
+     * <p>
+     * Values whose digits fit in the 53 bits of a double mantissa (about 15 significant digits) and have small
+     * exponents are parsed in place and give exactly the same result as {@link Double#parseDouble(String)},
+     * anything else is delegated to it.
+     *
+     * @throws NumberFormatException if the value is not a number
+     */
+    static double parseDouble(CharSequence value, int start, int end) {
+        int i = start;
+        boolean negative = false;
+        if (i < end && (value.charAt(i) == '+' || value.charAt(i) == '-')) {
+            negative = value.charAt(i) == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int mantissaDigits = 0;
+        int exponent = 0;
+        boolean hasDigits = false;
+        boolean inFraction = false;
+        for (; i < end; i++) {
+            final char c = value.charAt(i);
+            if (c >= '0' && c <= '9') {
+                hasDigits = true;
+                if (mantissa > 0 || c != '0') {
+                    if (++mantissaDigits > MAX_MANTISSA_DIGITS) {
+                        return parseDoubleSlow(value, start, end);
+                    }
+                }
+                mantissa = mantissa * 10 + (c - '0');
+                if (inFraction) {
+                    exponent--;
+                }
+            } else if ((c == '.' || c == ',') && !inFraction) {
+                inFraction = true;
+            } else if ((c == 'E' || c == 'e') && hasDigits) {
+                final int exponentValue = parseExponent(value, i + 1, end);
+                if (exponentValue == Integer.MIN_VALUE) {
+                    return parseDoubleSlow(value, start, end);
+                }
+                exponent += exponentValue;
+                break;
+            } else {
+                return parseDoubleSlow(value, start, end);
+            }
+        }
+        if (!hasDigits || mantissa >= MAX_EXACT_MANTISSA || Math.abs(exponent) >= POWERS_OF_TEN.length) {
+            return parseDoubleSlow(value, start, end);
+        }
+        // a single correctly rounded operation on exact operands, same as Double.parseDouble
+        final double result = exponent < 0
+                ? mantissa / POWERS_OF_TEN[-exponent]
+                : mantissa * POWERS_OF_TEN[exponent];
+        return negative ? -result : result;
+    }
+
+    /**
+     * Parses a decimal number multiplied by 10^scale and truncated toward zero to an int, the same as
+     * {@code BigDecimal.valueOf(Double.parseDouble(value)).movePointRight(scale).intValue()}.
+     * <p>
+     * Plain values of up to 15 significant digits are the exact digits of their double, so they are scaled
+     * in place by keeping the first scale fraction digits; anything else is delegated to {@link BigDecimal}.
+     *
+     * @throws NumberFormatException if the value is not a number
+     */
+    static int parseScaledInt(CharSequence value, int start, int end, int scale) {
+        int i = start;
+        boolean negative = false;
+        if (i < end && (value.charAt(i) == '+' || value.charAt(i) == '-')) {
+            negative = value.charAt(i) == '-';
+            i++;
+        }
+        long scaled = 0;
+        int significantDigits = 0;
+        int integerDigits = 0;
+        int fractionDigits = 0;
+        boolean hasDigits = false;
+        boolean inFraction = false;
+        for (; i < end; i++) {
+            final char c = value.charAt(i);
+            if (c >= '0' && c <= '9') {
+                hasDigits = true;
+                if (significantDigits > 0 || c != '0') {
+                    significantDigits++;
+                }
+                if (!inFraction) {
+                    scaled = scaled * 10 + (c - '0');
+                    integerDigits++;
+                } else if (fractionDigits < scale) {
+                    scaled = scaled * 10 + (c - '0');
+                    fractionDigits++;
+                }
+            } else if ((c == '.' || c == ',') && !inFraction) {
+                inFraction = true;
+            } else {
+                return parseScaledIntSlow(value, start, end, scale);
+            }
+        }
+        if (!hasDigits || significantDigits > MAX_EXACT_DECIMAL_DIGITS || integerDigits + scale > MAX_MANTISSA_DIGITS) {
+            return parseScaledIntSlow(value, start, end, scale);
+        }
+        for (; fractionDigits < scale; fractionDigits++) {
+            scaled *= 10;
+        }
+        return (int) (negative ? -scaled : scaled);
+    }
+
+    /**
+     * Parses an integer value such as 009 or -12.
+     *
+     * @throws NumberFormatException if the value is not an integer
+     */
+    static int parseInt(CharSequence value, int start, int end) {
+        int i = start;
+        boolean negative = false;
+        if (i < end && (value.charAt(i) == '+' || value.charAt(i) == '-')) {
+            negative = value.charAt(i) == '-';
+            i++;
+        }
+        if (i == end || end - i > 9) {
+            // let Integer report the error or handle the overflow
+            return Integer.parseInt(value.subSequence(start, end).toString());
+        }
+        int result = 0;
+        for (; i < end; i++) {
+            final int digit = value.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return Integer.parseInt(value.subSequence(start, end).toString());
+            }
+            result = result * 10 + digit;
+        }
+        return negative ? -result : result;
+    }
+
+    /**
+     * Converts the vbo format of time (UTC time since midnight in the form HHMMSS.SS or HHMMSS.SSS) to milliseconds.
+     *
+     * @throws IllegalArgumentException if the value is not a vbo time
+     */
+    static long parseVboTime(CharSequence value, int start, int end) {
+        final int length = end - start;
+        if (length != 9 && length != 10) {
+            throw new IllegalArgumentException(
+                    String.format("Unexpected VBO time value %s", value.subSequence(start, end)));
+        }
+        final int hh = twoDigits(value, start);
+        final int mm = twoDigits(value, start + 2);
+        final int ss = twoDigits(value, start + 4);
+        // skip the decimal separator
+        final int hundredths = twoDigits(value, start + 7);
+        final int thousandths = length == 9 ? 0 : digit(value, start + 9);
+        if (hh < 0 || mm < 0 || ss < 0 || hundredths < 0 || thousandths < 0) {
+            throw new NumberFormatException(
+                    String.format("Unexpected VBO time value %s", value.subSequence(start, end)));
+        }
+        final int millis = hundredths * 10 + thousandths;
+        return millis + ss * 1000L + mm * 60 * 1000L + hh * 60 * 60 * 1000L;
+    }
+
+    private void addField(int start, int end) {
+        if (fieldCount == fieldStarts.length) {
+            fieldStarts = Arrays.copyOf(fieldStarts, fieldCount * 2);
+            fieldEnds = Arrays.copyOf(fieldEnds, fieldCount * 2);
+        }
+        fieldStarts[fieldCount] = start;
+        fieldEnds[fieldCount] = end;
+        fieldCount++;
+    }
+
+    private int checkField(int field) {
+        if (field < 0 || field >= fieldCount) {
+            throw new ArrayIndexOutOfBoundsException(
+                    String.format("Field %d does not exist, line has %d fields", field, fieldCount));
+        }
+        return field;
+    }
+
+    /**
+     * @return the exponent or Integer.MIN_VALUE if it cannot be parsed in place
+     */
+    private static int parseExponent(CharSequence value, int start, int end) {
+        int i = start;
+        boolean negative = false;
+        if (i < end && (value.charAt(i) == '+' || value.charAt(i) == '-')) {
+            negative = value.charAt(i) == '-';
+            i++;
+        }
+        if (i == end || end - i > 4) {
+            return Integer.MIN_VALUE;
+        }
+        int exponent = 0;
+        for (; i < end; i++) {
+            final int digit = value.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return Integer.MIN_VALUE;
+            }
+            exponent = exponent * 10 + digit;
+        }
+        return negative ? -exponent : exponent;
+    }
+
+    private static int parseScaledIntSlow(CharSequence value, int start, int end, int scale) {
+        return BigDecimal.valueOf(parseDouble(value, start, end)).movePointRight(scale).intValue();
+    }
+
+    private static double parseDoubleSlow(CharSequence value, int start, int end) {
+        return Double.parseDouble(value.subSequence(start, end).toString().replace(',', '.'));
+    }
+
+    /**
+     * @return the value of the two digits at the given position or a negative value if they are not digits
+     */
+    private static int twoDigits(CharSequence value, int position) {
+        final int tens = digit(value, position);
+        final int units = digit(value, position + 1);
+        return tens < 0 || units < 0 ? -1 : tens * 10 + units;
+    }
+
+    private static int digit(CharSequence value, int position) {
+        final int digit = value.charAt(position) - '0';
+        return digit >= 0 && digit <= 9 ? digit : -1;
+    }
+}
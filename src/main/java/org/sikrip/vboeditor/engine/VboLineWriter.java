@@ -0,0 +1,206 @@
+package org.sikrip.vboeditor.engine;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+
+/**
+ * Buffered writer of vbo lines to a byte channel.
+ * <p>
+ * Numbers are encoded straight into the buffer with the same output as the {@link java.text.DecimalFormat}
+ * patterns used for vbo files (e.g. "000" or "0000.0000"), fixed point values are given as scaled integers so no
+ * floating point formatting is involved. Text is encoded with the default charset, like a {@link java.io.FileWriter}.
+ * Closing the writer flushes it and closes the channel.
+ */
+final class VboLineWriter implements Closeable {
+
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+    // enough for any long with its sign and decimal point
+    private static final int MAX_NUMBER_LENGTH = 21;
+    private static final long[] POWERS_OF_TEN = new long[19];
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer;
+
+    VboLineWriter(WritableByteChannel channel) {
+        this(channel, DEFAULT_BUFFER_SIZE);
+    }
+
+    VboLineWriter(WritableByteChannel channel, int bufferSize) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocate(Math.max(bufferSize, 2 * MAX_NUMBER_LENGTH));
+    }
+
+    VboLineWriter write(char c) throws IOException {
+        if (c >= 0x80) {
+            return write(String.valueOf(c));
+        }
+        ensureCapacity(1);
+        buffer.put((byte) c);
+        return this;
+    }
+
+    VboLineWriter write(String text) throws IOException {
+        return write(text, 0, text.length());
+    }
+
+    /**
+     * Writes the chars of the given text from start (inclusive) to end (exclusive).
+     */
+    VboLineWriter write(CharSequence text, int start, int end) throws IOException {
+        for (int i = start; i < end; i++) {
+            if (text.charAt(i) >= 0x80) {
+                return write(text.subSequence(start, end).toString().getBytes(Charset.defaultCharset()));
+            }
+        }
+        int written = start;
+        while (written < end) {
+            ensureCapacity(1);
+            final int count = Math.min(buffer.remaining(), end - written);
+            for (int i = written; i < written + count; i++) {
+                buffer.put((byte) text.charAt(i));
+            }
+            written += count;
+        }
+        return this;
+    }
+
+    /**
+     * Writes the line separator of the platform, like {@link java.io.BufferedWriter#newLine()}.
+     */
+    VboLineWriter newLine() throws IOException {
+        return write(LINE_SEPARATOR);
+    }
+
+    VboLineWriter write(byte[] bytes) throws IOException {
+        int written = 0;
+        while (written < bytes.length) {
+            ensureCapacity(1);
+            final int count = Math.min(buffer.remaining(), bytes.length - written);
+            buffer.put(bytes, written, count);
+            written += count;
+        }
+        return this;
+    }
+
+    /**
+     * Writes the value zero padded to the given digits, same as a "000" (for 3 digits) pattern.
+     */
+    VboLineWriter writeInt(long value, int minDigits) throws IOException {
+        ensureCapacity(MAX_NUMBER_LENGTH + minDigits);
+        if (value < 0) {
+            buffer.put((byte) '-');
+        }
+        putDigits(Math.abs(value), minDigits);
+        return this;
+    }
+
+    /**
+     * Writes unscaledValue / 10^scale with the given integer and fraction digits, same as a "0000.0000" (for 4 and 4
+     * digits) pattern.
+     *
+     * @param unscaledValue  the value multiplied by 10^scale
+     * @param scale          the decimal digits of the unscaled value
+     * @param integerDigits  the minimum digits of the integer part
+     * @param fractionDigits the digits of the fraction part, not less than the scale
+     */
+    VboLineWriter writeFixedPoint(long unscaledValue, int scale, int integerDigits, int fractionDigits)
+            throws IOException {
+        return writeFixedPoint(unscaledValue < 0, Math.abs(unscaledValue), scale, integerDigits, fractionDigits);
+    }
+
+    /**
+     * Same as {@link #writeFixedPoint(long, int, int, int)} with the sign given separately, so that negative zero
+     * is written as "-0", like {@link java.text.DecimalFormat} does.
+     */
+    VboLineWriter writeFixedPoint(boolean negative, long magnitude, int scale, int integerDigits, int fractionDigits)
+            throws IOException {
+        if (magnitude < 0 || scale < 0 || scale >= POWERS_OF_TEN.length || fractionDigits < scale) {
+            throw new IllegalArgumentException(String.format("Cannot write %d with scale %d and %d fraction digits",
+                    magnitude, scale, fractionDigits));
+        }
+        ensureCapacity(MAX_NUMBER_LENGTH + integerDigits + fractionDigits);
+        if (negative) {
+            buffer.put((byte) '-');
+        }
+        putDigits(magnitude / POWERS_OF_TEN[scale], integerDigits);
+        if (fractionDigits > 0) {
+            buffer.put((byte) '.');
+            if (scale > 0) {
+                putDigits(magnitude % POWERS_OF_TEN[scale], scale);
+            }
+            for (int i = scale; i < fractionDigits; i++) {
+                buffer.put((byte) '0');
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Writes the given time of day in the HHMMSS.SSS vbo format.
+     *
+     * @param millis the non negative time in milliseconds
+     */
+    VboLineWriter writeVboTime(long millis) throws IOException {
+        if (millis < 0) {
+            throw new IllegalArgumentException("Negative vbo time " + millis);
+        }
+        ensureCapacity(MAX_NUMBER_LENGTH + 8);
+        putDigits(millis / 3600000, 2);
+        putDigits(millis / 60000 % 60, 2);
+        putDigits(millis / 1000 % 60, 2);
+        buffer.put((byte) '.');
+        putDigits(millis % 1000, 3);
+        return this;
+    }
+
+    void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void ensureCapacity(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+
+    /**
+     * Puts the non negative value, zero padded to the given digits.
+     */
+    private void putDigits(long value, int minDigits) {
+        int digits = 1;
+        while (digits < POWERS_OF_TEN.length && value >= POWERS_OF_TEN[digits]) {
+            digits++;
+        }
+        final int start = buffer.position();
+        final int end = start + Math.max(digits, minDigits);
+        for (int i = end - 1; i >= start; i--) {
+            buffer.put(i, (byte) ('0' + value % 10));
+            value /= 10;
+        }
+        buffer.position(end);
+    }
+}
@@ -0,0 +1,202 @@
+package org.sikrip.vboeditor.engine;
+
+import com.google.common.base.Strings;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.sikrip.vboeditor.engine.VboUtils.DATA_SECTION;
+
+/**
+ * Pull based reader for vbo files.
+ * <p>
+ * All the sections that precede the {@link VboUtils#DATA_SECTION} are read when the reader is opened, the data lines
+ * are then returned one by one so that the memory used does not depend on the size of the file.
+ * Sections found after the data section are read once the data lines are exhausted.
+ */
+final class VboReader implements Closeable {
+
+    private final FileInputStream input;
+    private final BufferedReader reader;
+    private final List<String> preamble = new ArrayList<>();
+    private final Map<String, List<String>> sections = new HashMap<>();
+    private final Deque<String> peekedDataLines = new ArrayDeque<>();
+    private boolean dataExhausted;
+
+    /**
+     * Opens the given vbo file and reads all the sections up to the data section.
+     *
+     * @param vboFilePath the path of the vbo file
+     * @throws IOException when the file cannot be read
+     */
+    VboReader(String vboFilePath) throws IOException {
+        input = new FileInputStream(vboFilePath);
+        reader = new BufferedReader(new InputStreamReader(input));
+        try {
+            dataExhausted = !readSectionsUntilData();
+        } catch (IOException | RuntimeException e) {
+            reader.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return the lines found before the first section (e.g. the "File created on..." line)
+     */
+    List<String> getPreamble() {
+        return preamble;
+    }
+
+    /**
+     * @return the sections read so far (the data section is never included)
+     */
+    Map<String, List<String>> getSections() {
+        return sections;
+    }
+
+    /**
+     * Gets a section by its name, the name is matched ignoring case.
+     *
+     * @param sectionName the name of the section (e.g. [header])
+     * @return the entries of the section or null if the section is not present
+     */
+    List<String> getSection(String sectionName) {
+        final List<String> section = sections.get(sectionName);
+        if (section != null) {
+            return section;
+        }
+        for (Map.Entry<String, List<String>> entry : sections.entrySet()) {
+            if (entry.getKey().equalsIgnoreCase(sectionName)) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return true if there may be more data lines to read
+     */
+    boolean hasDataSection() {
+        return !dataExhausted || !peekedDataLines.isEmpty();
+    }
+
+    /**
+     * Reads the next data line, empty lines are skipped.
+     *
+     * @return the next data line or null if there are no more data lines
+     * @throws IOException when the file cannot be read
+     */
+    String readDataLine() throws IOException {
+        if (!peekedDataLines.isEmpty()) {
+            return peekedDataLines.poll();
+        }
+        return nextDataLine();
+    }
+
+    /**
+     * Gets up to the given number of data lines without consuming them, subsequent calls to {@link #readDataLine()}
+     * return the peeked lines first.
+     *
+     * @param maxLines the maximum number of lines to peek
+     * @return the lines peeked, less than maxLines only if the data section has no more lines
+     * @throws IOException when the file cannot be read
+     */
+    List<String> peekDataLines(int maxLines) throws IOException {
+        String dataLine;
+        while (peekedDataLines.size() < maxLines && (dataLine = nextDataLine()) != null) {
+            peekedDataLines.add(dataLine);
+        }
+        final List<String> dataLines = new ArrayList<>(maxLines);
+        for (String peekedDataLine : peekedDataLines) {
+            if (dataLines.size() == maxLines) {
+                break;
+            }
+            dataLines.add(peekedDataLine);
+        }
+        return dataLines;
+    }
+
+    private String nextDataLine() throws IOException {
+        if (dataExhausted) {
+            return null;
+        }
+        String vboLine;
+        while ((vboLine = reader.readLine()) != null) {
+            if (vboLine.startsWith("[")) {
+                // the data section ended, keep whatever follows
+                dataExhausted = true;
+                readSections(vboLine);
+                return null;
+            } else if (!vboLine.isEmpty()) {
+                return vboLine;
+            }
+        }
+        dataExhausted = true;
+        return null;
+    }
+
+    /**
+     * @return the bytes of the file read so far, including any buffered but not yet returned data
+     */
+    long getPosition() throws IOException {
+        return input.getChannel().position();
+    }
+
+    /**
+     * @return the size of the file
+     */
+    long getSize() throws IOException {
+        return input.getChannel().size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    /**
+     * @return true if the data section was reached
+     */
+    private boolean readSectionsUntilData() throws IOException {
+        String vboLine;
+        while ((vboLine = reader.readLine()) != null) {
+            if (vboLine.startsWith("[")) {
+                return readSections(vboLine);
+            } else if (!vboLine.isEmpty()) {
+                preamble.add(vboLine);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Reads sections starting from the given one until the data section or the end of the file is reached.
+     *
+     * @return true if the data section was reached
+     */
+    private boolean readSections(String sectionName) throws IOException {
+        List<String> sectionData = null;
+        String vboLine = sectionName;
+        do {
+            if (vboLine.startsWith("[")) {
+                if (vboLine.equalsIgnoreCase(DATA_SECTION)) {
+                    return true;
+                }
+                sectionData = new ArrayList<>();
+                sections.put(vboLine, sectionData);
+            } else if (!Strings.isNullOrEmpty(vboLine)) {
+                sectionData.add(vboLine);
+            }
+        } while ((vboLine = reader.readLine()) != null);
+        return false;
+    }
+}
@@ -1,23 +1,55 @@
 package org.sikrip.vboeditor.engine;
 
-import java.io.BufferedReader;
-import java.io.FileOutputStream;
-import java.io.FileReader;
-import java.math.BigDecimal;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 
-import static org.sikrip.vboeditor.engine.DbnToVbo.calculateDbnChecksum;
+import static org.sikrip.vboeditor.engine.VboUtils.HEADER_SECTION;
 
 /**
  * Converter from vbo file to dbn.
+ * <p>
+ * The vbo file is streamed, each data line is parsed straight to the scaled integers of the dbn data packet
+ * and the packets are written in large blocks.
  */
 public class VboToDbn {
 
-    private static final byte[] NEW_LINE_BYTES = new byte[]{(byte) 13, (byte) 10};
+    private static final String NEW_LINE = "\r\n";
+    private static final byte[] DBN_HEADER = (NEW_LINE +
+            NEW_LINE +
+            "[HEADER]" + NEW_LINE +
+            "SATS(1)" + NEW_LINE +
+            "TIME(3)" + NEW_LINE +
+            "LATITUDE(4)" + NEW_LINE +
+            "LONGITUDE(4)" + NEW_LINE +
+            "VELOCITY(2)" + NEW_LINE +
+            "HEADING(2)" + NEW_LINE +
+            "HEIGHT(4)" + NEW_LINE +
+            "YAW__(2)" + NEW_LINE +
+            "YAW_(2)" + NEW_LINE +
+            "YAW(2)" + NEW_LINE +
+            "SLIP(2)" + NEW_LINE +
+            "CHKSUM(2)" + NEW_LINE +
+            NEW_LINE +
+            "[COMMENTS]" + NEW_LINE +
+            "Converted using vbotools" + NEW_LINE +
+            "Find more on www.vbotools.com" + NEW_LINE +
+            "[DATA]").getBytes(StandardCharsets.US_ASCII);
+    // every data packet is followed by the bytes 13, 10, 36
     private static final byte[] NEW_DATA_LINE_BYTES = new byte[]{(byte) 13, (byte) 10, (byte) 36};
-    private static final byte ZERO = (byte) 0;
+    private static final int PAYLOAD_SIZE = 28;
+    private static final int DATA_PACKET_SIZE = PAYLOAD_SIZE + 2 + NEW_DATA_LINE_BYTES.length;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String[] REQUIRED_COLUMNS = {
+            "satellites", "time", "latitude", "longitude", "velocity kmh", "heading", "height"
+    };
 
     /**
      * Converts from .vbo to .dbn file format.
@@ -25,196 +57,126 @@ public class VboToDbn {
      * @param dbnFilePath the path of the dbn file (output)
      */
     public static void convert(String vboFilePath, String dbnFilePath) {
-        try (
-                final BufferedReader vboReader = new BufferedReader(new FileReader(vboFilePath));
-                final FileOutputStream dbnWriter = new FileOutputStream(dbnFilePath);
-        ) {
-            String inputLine;
-
-            while (!(inputLine = vboReader.readLine()).startsWith("File created")) {
-                // Read until the 'File created...' line
+        try (final VboReader vboReader = new VboReader(vboFilePath)) {
+            final List<String> header = vboReader.getSection(HEADER_SECTION);
+            if (header == null || !vboReader.hasDataSection()) {
+                throw new IOException("Cannot find header or data section (check vbo file for corruption)");
             }
-
-            dbnWriter.write(inputLine.getBytes(StandardCharsets.UTF_8));
-            dbnWriter.write(NEW_LINE_BYTES);
-            dbnWriter.write(NEW_LINE_BYTES);
-            dbnWriter.write("[HEADER]".getBytes());
-            dbnWriter.write(NEW_LINE_BYTES);
-            dbnWriter.write("SATS(1)".getBytes());
-            dbnWriter.write(NEW_LINE_BYTES);
-            dbnWriter.write("TIME(3)".getBytes());
-            dbnWriter.write(NEW_LINE_BYTES);
-            dbnWriter.write("LATITUDE(4)".getBytes());
-            dbnWriter.write(NEW_LINE_BYTES);
-            dbnWriter.write("LONGITUDE(4)".getBytes());
-            dbnWriter.write(NEW_LINE_BYTES);
-            dbnWriter.write("VELOCITY(2)".getBytes());
-            dbnWriter.write(NEW_LINE_BYTES);
-            dbnWriter.write("HEADING(2)".getBytes());
-            dbnWriter.write(NEW_LINE_BYTES);
-            dbnWriter.write("HEIGHT(4)".getBytes());
-            dbnWriter.write(NEW_LINE_BYTES);
-            dbnWriter.write("YAW__(2)".getBytes());
-            dbnWriter.write(NEW_LINE_BYTES);
-            dbnWriter.write("YAW_(2)".getBytes());
-            dbnWriter.write(NEW_LINE_BYTES);
-            dbnWriter.write("YAW(2)".getBytes());
-            dbnWriter.write(NEW_LINE_BYTES);
-            dbnWriter.write("SLIP(2)".getBytes());
-            dbnWriter.write(NEW_LINE_BYTES);
-            dbnWriter.write("CHKSUM(2)".getBytes());
-            dbnWriter.write(NEW_LINE_BYTES);
-            dbnWriter.write(NEW_LINE_BYTES);
-            dbnWriter.write("[COMMENTS]".getBytes());
-            dbnWriter.write(NEW_LINE_BYTES);
-            dbnWriter.write("Converted using vbotools".getBytes());
-            dbnWriter.write(NEW_LINE_BYTES);
-            dbnWriter.write("Find more on www.vbotools.com".getBytes());
-            dbnWriter.write(NEW_LINE_BYTES);
-            dbnWriter.write("[DATA]".getBytes());
-
-            dbnWriter.write(NEW_DATA_LINE_BYTES);
-
-            while (!(inputLine = vboReader.readLine()).equalsIgnoreCase("[header]")) {
-                // Read until the '[header]' section is reached
-            }
-
             final List<String> headerNames = new ArrayList<>();
-            while (!(inputLine = vboReader.readLine()).startsWith("[")) { // read until the next section
-                if (!"".equals(inputLine)) {
-                    headerNames.add(inputLine.toLowerCase());
-                }
-            }
-
-            final int satsIdx = headerNames.indexOf("satellites");
-            final int timeIdx = headerNames.indexOf("time");
-            final int latIdx = headerNames.indexOf("latitude");
-            final int longIdx = headerNames.indexOf("longitude");
-            final int velocityIdx = headerNames.indexOf("velocity kmh");
-            final int headingIdx = headerNames.indexOf("heading");
-            final int heightIdx = headerNames.indexOf("height");
-
-            while (!(inputLine = vboReader.readLine()).equalsIgnoreCase("[data]")) {
-                // Read until the '[data]' section is reached
+            for (String headerName : header) {
+                headerNames.add(headerName.toLowerCase());
             }
-            while ((inputLine = vboReader.readLine()) != null) {
-                final String[] inputDataArray = inputLine.replaceAll(",", ".").split(" ");
-
-                final byte[] payload = new byte[28];
-                int payloadIdx = 0;
-                // sats(1)
-                payload[payloadIdx++] = Byte.parseByte(inputDataArray[satsIdx]);
-
-                // time(3)
-                final int time = (int) (vboTimeToMillis(inputDataArray[timeIdx]) / 10);
-                final byte[] timeBytes = intToByteArray(time); //
-                // skip timeBytes[0] as the time is 3 bytes on dbn file
-                payload[payloadIdx++] = timeBytes[1];
-                payload[payloadIdx++] = timeBytes[2];
-                payload[payloadIdx++] = timeBytes[3];
-
-                // LATITUDE(4)
-                final int lat = BigDecimal.valueOf(Double.parseDouble(inputDataArray[latIdx])).multiply(BigDecimal.valueOf(100000)).intValue();
-                final byte[] latBytes = intToByteArray(lat);
-                payload[payloadIdx++] = latBytes[0];
-                payload[payloadIdx++] = latBytes[1];
-                payload[payloadIdx++] = latBytes[2];
-                payload[payloadIdx++] = latBytes[3];
-
-                // LONGITUDE(4)
-                final int longitude = -BigDecimal.valueOf(Double.parseDouble(inputDataArray[longIdx])).multiply(BigDecimal.valueOf(100000)).intValue();
-                final byte[] longBytes = intToByteArray(longitude);
-                payload[payloadIdx++] = longBytes[0];
-                payload[payloadIdx++] = longBytes[1];
-                payload[payloadIdx++] = longBytes[2];
-                payload[payloadIdx++] = longBytes[3];
-
-                // VELOCITY(2)
-                final int velocity = BigDecimal.valueOf(Double.parseDouble(inputDataArray[velocityIdx])).multiply(BigDecimal.valueOf(100)).intValue();
-                final byte[] velocityBytes = intToByteArray(velocity);
-                // skip velocityBytes[0] and velocityBytes[1] as the velocity is 2 bytes on dbn file
-                payload[payloadIdx++] = velocityBytes[2];
-                payload[payloadIdx++] = velocityBytes[3];
-
-                // HEADING(2)
-                final int heading = BigDecimal.valueOf(Double.parseDouble(inputDataArray[headingIdx])).multiply(BigDecimal.valueOf(100)).intValue();
-                final byte[] headingBytes = intToByteArray(heading);
-                // skip headingBytes[0] and headingBytes[1] as the heading is 2 bytes on dbn file
-                payload[payloadIdx++] = headingBytes[2];
-                payload[payloadIdx++] = headingBytes[3];;
-
-                // HEIGHT(4)
-                final int height = BigDecimal.valueOf(Double.parseDouble(inputDataArray[heightIdx])).multiply(BigDecimal.valueOf(100)).intValue();
-                final byte[] heightBytes = intToByteArray(height);
-                payload[payloadIdx++] = heightBytes[0];
-                payload[payloadIdx++] = heightBytes[1];
-                payload[payloadIdx++] = heightBytes[2];
-                payload[payloadIdx++] = heightBytes[3];
-
-                // YAW__ (2)
-                payload[payloadIdx++] = ZERO;
-                payload[payloadIdx++] = ZERO;
-
-                // YAW_ (2)
-                payload[payloadIdx++] = ZERO;
-                payload[payloadIdx++] = ZERO;
-
-                // YAW (2)
-                payload[payloadIdx++] = ZERO;
-                payload[payloadIdx++] = ZERO;
-
-                // SLIP (2)
-                payload[payloadIdx++] = ZERO;
-                payload[payloadIdx++] = ZERO;
-
-                if (payloadIdx != 28) {
-                    throw new RuntimeException("Not entire payload written");
+            final int[] columnIndexes = new int[REQUIRED_COLUMNS.length];
+            for (int i = 0; i < REQUIRED_COLUMNS.length; i++) {
+                columnIndexes[i] = headerNames.indexOf(REQUIRED_COLUMNS[i]);
+                if (columnIndexes[i] < 0) {
+                    throw new IOException(String.format("Cannot find the '%s' column in the header", REQUIRED_COLUMNS[i]));
                 }
-                dbnWriter.write(payload);
+            }
 
-                // CHECKSUM(2)
-                final int checksum = calculateDbnChecksum(payload, 28);
-                final byte[] checksumBytes = intToByteArray(checksum);
-                // skip checksumBytes[0] and checksumBytes[1] as the checksum is 2 bytes on dbn file
-                dbnWriter.write(checksumBytes[2]);
-                dbnWriter.write(checksumBytes[3]);
+            try (final FileChannel dbnChannel = FileChannel.open(Paths.get(dbnFilePath),
+                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                final ByteBuffer dbnBuffer = ByteBuffer.allocate(BUFFER_SIZE);
+                write(dbnBuffer, dbnChannel, getFileTag(vboReader).getBytes(StandardCharsets.UTF_8));
+                write(dbnBuffer, dbnChannel, DBN_HEADER);
+                write(dbnBuffer, dbnChannel, NEW_DATA_LINE_BYTES);
 
-                // End of data line
-                dbnWriter.write(NEW_DATA_LINE_BYTES);
+                encodeDataLines(vboReader, columnIndexes, dbnBuffer, dbnChannel);
+                flush(dbnBuffer, dbnChannel);
             }
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
     }
 
-    private static byte[] intToByteArray(int value) {
-        return new byte[] {
-                (byte)(value >>> 24),
-                (byte)(value >>> 16),
-                (byte)(value >>> 8),
-                (byte)value};
+    private static void encodeDataLines(VboReader vboReader, int[] columnIndexes, ByteBuffer dbnBuffer,
+                                        FileChannel dbnChannel) throws IOException {
+        final int satsIdx = columnIndexes[0];
+        final int timeIdx = columnIndexes[1];
+        final int latIdx = columnIndexes[2];
+        final int longIdx = columnIndexes[3];
+        final int velocityIdx = columnIndexes[4];
+        final int headingIdx = columnIndexes[5];
+        final int heightIdx = columnIndexes[6];
+
+        final List<String> firstDataLines = vboReader.peekDataLines(1);
+        final String dataSeparator = firstDataLines.isEmpty() ? null : VboUtils.getDataSeparator(firstDataLines.get(0));
+        // decimal commas are accepted by the tokenizer
+        final VboLineTokenizer tokenizer = new VboLineTokenizer(dataSeparator != null ? dataSeparator : " ");
+        final DbnChecksum dbnChecksum = new DbnChecksum();
+
+        String dataLine;
+        while ((dataLine = vboReader.readDataLine()) != null) {
+            tokenizer.reset(dataLine);
+            if (dbnBuffer.remaining() < DATA_PACKET_SIZE) {
+                flush(dbnBuffer, dbnChannel);
+            }
+            final int packet = dbnBuffer.position();
+
+            // SATS(1)
+            final int sats = tokenizer.getInt(satsIdx);
+            if (sats < Byte.MIN_VALUE || sats > Byte.MAX_VALUE) {
+                throw new NumberFormatException("Value out of range. Value:" + tokenizer.getString(satsIdx));
+            }
+            dbnBuffer.put((byte) sats);
+
+            // TIME(3), in units of 10ms
+            final int time = (int) (tokenizer.getTimeMillis(timeIdx) / 10);
+            dbnBuffer.put((byte) (time >>> 16)).putShort((short) time);
+
+            // LATITUDE(4), LONGITUDE(4)
+            dbnBuffer.putInt(tokenizer.getScaledInt(latIdx, 5));
+            dbnBuffer.putInt(-tokenizer.getScaledInt(longIdx, 5));
+
+            // VELOCITY(2), HEADING(2)
+            dbnBuffer.putShort((short) tokenizer.getScaledInt(velocityIdx, 2));
+            dbnBuffer.putShort((short) tokenizer.getScaledInt(headingIdx, 2));
+
+            // HEIGHT(4)
+            dbnBuffer.putInt(tokenizer.getScaledInt(heightIdx, 2));
+
+            // YAW__(2), YAW_(2), YAW(2), SLIP(2) are not available
+            dbnBuffer.putLong(0);
+
+            // CHKSUM(2)
+            dbnChecksum.reset();
+            dbnChecksum.update(dbnBuffer, packet, PAYLOAD_SIZE);
+            dbnBuffer.putShort((short) dbnChecksum.getValue());
+
+            // End of data line
+            dbnBuffer.put(NEW_DATA_LINE_BYTES);
+        }
     }
 
     /**
-     * Converts the vbo format of time (UTC time since midnight in the form HH:MM:SS.SS) to milliseconds.
-     *
-     * @param time the time in the format used by the vbo files
-     * @return the equivalent time in milliseconds
+     * @return the 'File created...' line of the vbo file or a new one if it is missing
      */
-    private static long vboTimeToMillis(String time) {
-        final int length = time.length();
-        if (length == 10 || length == 9) {
-            final long hh = Long.parseLong(time.substring(0, 2));
-            final long mm = Long.parseLong(time.substring(2, 4));
-            final long ss = Long.parseLong(time.substring(4, 6));
-            final long millis;
-            if (length==9) {
-                millis = Long.parseLong(time.substring(7, length)) * 10;
-            } else {
-                millis = Long.parseLong(time.substring(7, length));
+    private static String getFileTag(VboReader vboReader) {
+        for (String line : vboReader.getPreamble()) {
+            if (line.startsWith("File created")) {
+                return line;
             }
-            return millis + ss * 1000 + mm * 60 * 1000 + hh * 60 * 60 * 1000;
         }
-        throw new IllegalArgumentException(String.format("Unexpected VBO time value %s", time));
+        return String.format("File created on %s", new SimpleDateFormat("dd/MM/yyyy HH:mm:ss").format(new Date()));
+    }
+
+    private static void write(ByteBuffer dbnBuffer, FileChannel dbnChannel, byte[] bytes) throws IOException {
+        int written = 0;
+        while (written < bytes.length) {
+            if (!dbnBuffer.hasRemaining()) {
+                flush(dbnBuffer, dbnChannel);
+            }
+            final int count = Math.min(dbnBuffer.remaining(), bytes.length - written);
+            dbnBuffer.put(bytes, written, count);
+            written += count;
+        }
+    }
+
+    private static void flush(ByteBuffer dbnBuffer, FileChannel dbnChannel) throws IOException {
+        dbnBuffer.flip();
+        while (dbnBuffer.hasRemaining()) {
+            dbnChannel.write(dbnBuffer);
+        }
+        dbnBuffer.clear();
     }
 }
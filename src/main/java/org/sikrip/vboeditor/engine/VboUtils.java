@@ -19,9 +19,17 @@ final class VboUtils {
     static final String AVIFILEINDEX = "avifileindex";
     static final String AVISYNCTIME = "avisynctime";
 
+    /**
+     * The number of leading data lines used for the data interval when it is needed before all the data lines are
+     * read, see {@link #getGpsDataInterval(List, int, String)}.
+     */
+    static final int GPS_DATA_INTERVAL_LINES = 1000;
 
     static String getDataSeparator(Map<String, List<String>> vboSections) {
-        String dataLine = vboSections.get(DATA_SECTION).get(0);
+        return getDataSeparator(vboSections.get(DATA_SECTION).get(0));
+    }
+
+    static String getDataSeparator(String dataLine) {
         for (String separator : DATA_SEPARATORS) {
             if (dataLine.split(separator).length > 0) {
                 return separator;
@@ -38,20 +46,7 @@ final class VboUtils {
      */
     static long convertToMillis(String time) {
         // Time: This is UTC time since midnight in the form HH:MM:SS.SS,
-        if (time.length() != 9 && time.length() != 10) {
-            throw new IllegalArgumentException(String.format("Unexpected VBO time value %s", time));
-        }
-        final long hh = Long.parseLong(time.substring(0, 2));
-        final long mm = Long.parseLong(time.substring(2, 4));
-        final long ss = Long.parseLong(time.substring(4, 6));
-        // skip the decimal separator
-        final long millis;
-        if (time.length()== 9) {
-            millis = Long.parseLong(time.substring(7, 9)) * 10;
-        } else {
-            millis = Long.parseLong(time.substring(7, 10));
-        }
-        return millis + ss * 1000 + mm * 60 * 1000 + hh * 60 * 60 * 1000;
+        return VboLineTokenizer.parseVboTime(time, 0, time.length());
     }
 
     /**
@@ -62,51 +57,39 @@ final class VboUtils {
      * @return the data sampling interval of the gps data
      */
     static int getGpsDataInterval(Map<String, List<String>> vboFileSections, String dataSeparator) {
-        //FIXME
-        final int numberOfSamples = 10;
-
-        // skip some entries at the start of the data because such entries do not contain stable time info
-        final int entriesToSkip = 10;
-
-        if (vboFileSections.get(DATA_SECTION).size() < entriesToSkip + numberOfSamples) {
-            throw new IllegalArgumentException("Data sample to small");
-        }
-
-        final int timeColumnIdx = vboFileSections.get(HEADER_SECTION).indexOf("time");
-
-        long time = -1;
-        long sumOfIntervals = 0;
-        for (int i = entriesToSkip; i < entriesToSkip + numberOfSamples; i++) {
-
-            long currentTime = convertToMillis(
-                    vboFileSections.get(DATA_SECTION).get(i).split(dataSeparator)[timeColumnIdx]);
+        return getGpsDataInterval(vboFileSections.get(DATA_SECTION),
+                vboFileSections.get(HEADER_SECTION).indexOf("time"), dataSeparator);
+    }
 
-            if (time != -1) {
-                sumOfIntervals += currentTime - time;
+    /**
+     * Gets the data sampling interval in milliseconds for the provided data lines, see
+     * {@link SampleIntervalEstimator}.
+     *
+     * @param dataLines     the data lines
+     * @param timeColumnIdx the index of the time column
+     * @param dataSeparator the separator of the gps data
+     * @return the data sampling interval of the gps data
+     */
+    static int getGpsDataInterval(List<String> dataLines, int timeColumnIdx, String dataSeparator) {
+        final VboLineTokenizer tokenizer = new VboLineTokenizer(dataSeparator);
+        final SampleIntervalEstimator estimator = new SampleIntervalEstimator();
+        for (String dataLine : dataLines) {
+            if (!dataLine.trim().isEmpty()) {
+                estimator.add(tokenizer.reset(dataLine).getTimeMillis(timeColumnIdx));
             }
-            time = currentTime;
         }
+        return getGpsDataInterval(estimator);
+    }
 
-        // find mean interval
-        long intervalMillis = sumOfIntervals / (numberOfSamples - 1);
-
-        int intervals[] = { 1000/*1hz*/, 200/*5hz*/, 100/*10hz*/, 50/*20hz*/ };
-
-        long diffsPerInterval[] = { Math.abs(1000L - intervalMillis),
-                Math.abs(200L - intervalMillis),
-                Math.abs(100L - intervalMillis),
-                Math.abs(50L - intervalMillis) };
-
-        long minDiff = diffsPerInterval[0];
-        int minDiffIdx = 0;
-        for (int i = 1; i < diffsPerInterval.length; i++) {
-            if (diffsPerInterval[i] < minDiff) {
-                minDiff = diffsPerInterval[i];
-                minDiffIdx = i;
-            }
+    /**
+     * @return the interval of the given estimator
+     * @throws IllegalArgumentException when the estimator has no data
+     */
+    static int getGpsDataInterval(SampleIntervalEstimator estimator) {
+        if (estimator.getDeltaCount() == 0) {
+            throw new IllegalArgumentException("Data sample to small");
         }
-
-        return intervals[minDiffIdx];
+        return estimator.getInterval();
     }
 
     /**
@@ -115,13 +98,15 @@ final class VboUtils {
      */
     static List<String> getDataLines(Map<String, List<String>> vboSections, String separator, int aviIndexPosition, int aviSyncPosition ) {
         final List<String> dataLinesNoVideoData = new ArrayList<>();
+        final VboLineTokenizer tokenizer = new VboLineTokenizer(separator);
+        final StringBuilder lineBuilder = new StringBuilder();
         for (String line : vboSections.get(DATA_SECTION)) {
-            final StringBuilder lineBuilder = new StringBuilder();
-            final String[] dataArray = line.split(separator);
-            for (int i = 0; i < dataArray.length; i++) {
+            lineBuilder.setLength(0);
+            tokenizer.reset(line);
+            for (int i = 0; i < tokenizer.getFieldCount(); i++) {
                 if (i != aviIndexPosition && i != aviSyncPosition) {
                     // add all data except the avi related
-                    lineBuilder.append(dataArray[i]).append(separator);
+                    lineBuilder.append(line, tokenizer.getFieldStart(i), tokenizer.getFieldEnd(i)).append(separator);
                 }
             }
             dataLinesNoVideoData.add(lineBuilder.toString().trim());
@@ -134,21 +119,26 @@ final class VboUtils {
 
         // No acceleration data for the first row of data
         accelerationData.add(0.0);
+        if (data.isEmpty()) {
+            return accelerationData;
+        }
+
+        final VboLineTokenizer tokenizer = new VboLineTokenizer(separator);
+        tokenizer.reset(data.get(0));
+        double velocity = tokenizer.getDouble(velocityDataIdx);
+        long time = tokenizer.getTimeMillis(timeDataIdx);
 
         // Calculate the acceleration for all data lines.
         for (int i = 0; i < data.size()-1; i++) {
-            final String currentData[] = data.get(i).split(separator);
-            final String nextData[] = data.get(i+1).split(separator);;
-
-            final double velocity = Double.valueOf(currentData[velocityDataIdx]);
-            final double nextVelocity = Double.valueOf(nextData[velocityDataIdx]);
-
-            final long time = convertToMillis(currentData[timeDataIdx]);
-            final long nextTime = convertToMillis(nextData[timeDataIdx]);
+            tokenizer.reset(data.get(i + 1));
+            final double nextVelocity = tokenizer.getDouble(velocityDataIdx);
+            final long nextTime = tokenizer.getTimeMillis(timeDataIdx);
 
             final double acceleration = (nextVelocity - velocity) / (nextTime - time);
 
             accelerationData.add(acceleration);
+            velocity = nextVelocity;
+            time = nextTime;
         }
         return accelerationData;
     }
@@ -0,0 +1,83 @@
+package org.sikrip.vboeditor.gui;
+
+import java.util.function.LongSupplier;
+
+/**
+ * The media time of a playback, derived from {@link System#nanoTime()} instead of counting ticks.
+ * <p>
+ * The time is computed from the wall time elapsed since the playback started (or since the rate last changed), so
+ * late or skipped ticks do not make the playback drift, a late tick just moves further.
+ */
+final class PlaybackClock {
+
+    static final double MIN_RATE = 0.25;
+    static final double MAX_RATE = 16;
+
+    private final LongSupplier nanoTime;
+    private boolean running;
+    private double rate = 1;
+    // the media time and the wall time when the playback started or the rate changed
+    private long startTimeMillis;
+    private long startNanos;
+
+    PlaybackClock() {
+        this(System::nanoTime);
+    }
+
+    /**
+     * @param nanoTime the source of the wall time in nanoseconds
+     */
+    PlaybackClock(LongSupplier nanoTime) {
+        this.nanoTime = nanoTime;
+    }
+
+    /**
+     * Starts the playback from the given media time.
+     */
+    void start(long timeMillis) {
+        startTimeMillis = timeMillis;
+        startNanos = nanoTime.getAsLong();
+        running = true;
+    }
+
+    /**
+     * Stops the playback, the time stays at the time it was stopped.
+     */
+    void stop() {
+        startTimeMillis = getTime();
+        running = false;
+    }
+
+    boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * @return the current media time in milliseconds
+     */
+    long getTime() {
+        if (!running) {
+            return startTimeMillis;
+        }
+        return startTimeMillis + Math.round((nanoTime.getAsLong() - startNanos) * rate / 1000000);
+    }
+
+    double getRate() {
+        return rate;
+    }
+
+    /**
+     * Changes the playback rate, a running playback continues from its current time.
+     *
+     * @param rate the media time per wall time, from {@link #MIN_RATE} to {@link #MAX_RATE}
+     */
+    void setRate(double rate) {
+        if (rate < MIN_RATE || rate > MAX_RATE) {
+            throw new IllegalArgumentException("Playback rate should be from " + MIN_RATE + " to " + MAX_RATE);
+        }
+        if (running) {
+            start(getTime());
+        }
+        this.rate = rate;
+    }
+}
@@ -0,0 +1,232 @@
+package org.sikrip.vboeditor.gui;
+
+import org.sikrip.vboeditor.model.TelemetrySession;
+
+import java.awt.*;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+/**
+ * Projects the positions of a telemetry session on a panel and simplifies the projected route to what the panel
+ * can show.
+ * <p>
+ * The bounds of the route are found once and only grow with the samples added to a session that is still loading, see
+ * {@link #extend(TelemetrySession)}, fitting it to a new size is cheap. The simplified route only has the
+ * points needed to draw it within half a pixel (consecutive samples on the same pixel are merged and the rest are
+ * reduced with the Douglas-Peucker algorithm), so drawing it depends on the panel size and not on the session
+ * length. Single positions are projected from the full resolution session, see {@link #getX(double)}.
+ */
+final class RouteProjection {
+
+    // the maximum distance in pixels of a dropped point from the simplified route
+    private static final double SIMPLIFICATION_TOLERANCE = 0.5;
+
+    private TelemetrySession session;
+    // the samples within the bounds
+    private int size;
+    // the bounds of the route in radians
+    private double minX;
+    private double minY;
+    private double maxX;
+    private double maxY;
+
+    private double ratio;
+    private double width;
+    private double widthPadding;
+    private double height;
+    private double heightPadding;
+
+    RouteProjection(TelemetrySession session) {
+        if (session.isEmpty()) {
+            throw new IllegalArgumentException("Cannot project an empty session");
+        }
+        minX = toRadians(session.getLongitude(0));
+        minY = toRadians(session.getLatitude(0));
+        maxX = minX;
+        maxY = minY;
+        extend(session);
+    }
+
+    /**
+     * Continues the route with a session that has the same first samples and more, e.g. a session that is still
+     * loading. Only the added samples are scanned, the fit is kept unless the bounds grew.
+     *
+     * @param session the session with the added samples
+     * @return true if the bounds grew and the route should be fitted again
+     */
+    boolean extend(TelemetrySession session) {
+        this.session = session;
+
+        // Actually this is not 100% acurate as it does not take into account the earth curvature
+        // but for the area of a track we assume that the earth is flat
+        boolean grew = false;
+        for (int i = size; i < session.getSize(); i++) {
+            final double x = toRadians(session.getLongitude(i));
+            final double y = toRadians(session.getLatitude(i));
+            if (x < minX || y < minY || x > maxX || y > maxY) {
+                minX = Math.min(minX, x);
+                minY = Math.min(minY, y);
+                maxX = Math.max(maxX, x);
+                maxY = Math.max(maxY, y);
+                grew = true;
+            }
+        }
+        size = Math.max(size, session.getSize());
+        return grew;
+    }
+
+    /**
+     * @return the number of samples of the route
+     */
+    int getSize() {
+        return size;
+    }
+
+    /**
+     * Fits the route to the given size.
+     *
+     * @param width   the width of the panel
+     * @param height  the height of the panel
+     * @param padding the minimum space around the route
+     */
+    void fit(int width, int height, int padding) {
+        this.width = width;
+        this.height = height;
+
+        // the actual drawing space for the map on the image
+        final double mapWidth = width - padding * 2;
+        final double mapHeight = height - padding * 2;
+
+        // using different ratios for width and height will cause the map to be stretched. So, we have to determine
+        // the global ratio that will perfectly fit into the given image dimension
+        final double rangeX = maxX - minX;
+        final double rangeY = maxY - minY;
+        ratio = Math.min(mapWidth / rangeX, mapHeight / rangeY);
+        if (Double.isInfinite(ratio) || Double.isNaN(ratio)) {
+            // a single position
+            ratio = 0;
+        }
+
+        // now we need to readjust the padding to ensure the map is always drawn on the center of the given image dimension
+        heightPadding = (height - (ratio * rangeY)) / 2;
+        widthPadding = (width - (ratio * rangeX)) / 2;
+    }
+
+    /**
+     * @return the x of the given longitude on the panel
+     */
+    double getX(double longitude) {
+        // need to invert the XY since 0,0 starts at top left
+        return width - widthPadding - (toRadians(longitude) - minX) * ratio;
+    }
+
+    /**
+     * @return the y of the given latitude on the panel
+     */
+    double getY(double latitude) {
+        return height - heightPadding - (toRadians(latitude) - minY) * ratio;
+    }
+
+    /**
+     * @return the route simplified for the size it was last fitted to
+     */
+    Polygon simplify() {
+        return simplify(0, size);
+    }
+
+    /**
+     * Simplifies a part of the route, the first and last samples are always kept so that consecutive parts join.
+     *
+     * @param from the first sample
+     * @param to   the sample after the last one
+     * @return the part of the route simplified for the size it was last fitted to
+     */
+    Polygon simplify(int from, int to) {
+        // merge consecutive samples on the same pixel, the rest are simplified before rounding so that a straight
+        // line is not kept as a staircase of pixels
+        double[] x = new double[64];
+        double[] y = new double[64];
+        int count = 0;
+        int lastPixelX = 0;
+        int lastPixelY = 0;
+        for (int i = from; i < to; i++) {
+            final double pointX = getX(session.getLongitude(i));
+            final double pointY = getY(session.getLatitude(i));
+            final int pixelX = (int) pointX;
+            final int pixelY = (int) pointY;
+            if (count == 0 || pixelX != lastPixelX || pixelY != lastPixelY || i == to - 1) {
+                if (count == x.length) {
+                    x = Arrays.copyOf(x, count * 2);
+                    y = Arrays.copyOf(y, count * 2);
+                }
+                x[count] = pointX;
+                y[count] = pointY;
+                lastPixelX = pixelX;
+                lastPixelY = pixelY;
+                count++;
+            }
+        }
+
+        final boolean[] keep = douglasPeucker(x, y, count);
+        final Polygon route = new Polygon();
+        for (int i = 0; i < count; i++) {
+            if (keep[i]) {
+                route.addPoint((int) x[i], (int) y[i]);
+            }
+        }
+        return route;
+    }
+
+    /**
+     * Marks the points to keep, iteratively so that long routes do not exhaust the stack.
+     */
+    private static boolean[] douglasPeucker(double[] x, double[] y, int count) {
+        final boolean[] keep = new boolean[count];
+        if (count == 0) {
+            return keep;
+        }
+        keep[0] = true;
+        keep[count - 1] = true;
+
+        final Deque<int[]> ranges = new ArrayDeque<>();
+        ranges.push(new int[]{0, count - 1});
+        while (!ranges.isEmpty()) {
+            final int[] range = ranges.pop();
+            final int first = range[0];
+            final int last = range[1];
+
+            double maxDistance = -1;
+            int farthest = -1;
+            for (int i = first + 1; i < last; i++) {
+                final double distance = distanceToSegment(x[i], y[i], x[first], y[first], x[last], y[last]);
+                if (distance > maxDistance) {
+                    maxDistance = distance;
+                    farthest = i;
+                }
+            }
+            if (maxDistance > SIMPLIFICATION_TOLERANCE) {
+                keep[farthest] = true;
+                ranges.push(new int[]{first, farthest});
+                ranges.push(new int[]{farthest, last});
+            }
+        }
+        return keep;
+    }
+
+    private static double distanceToSegment(double pointX, double pointY, double startX, double startY,
+                                            double endX, double endY) {
+        final double dx = endX - startX;
+        final double dy = endY - startY;
+        final double lengthSquared = dx * dx + dy * dy;
+        double t = 0;
+        if (lengthSquared > 0) {
+            t = Math.max(0, Math.min(1, ((pointX - startX) * dx + (pointY - startY) * dy) / lengthSquared));
+        }
+        return Math.hypot(pointX - (startX + t * dx), pointY - (startY + t * dy));
+    }
+
+    private static double toRadians(double degrees) {
+        return degrees * Math.PI / 180;
+    }
+}
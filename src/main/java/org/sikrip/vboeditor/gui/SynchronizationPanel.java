@@ -8,14 +8,20 @@ import org.slf4j.LoggerFactory;
 
 import javax.swing.*;
 import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.concurrent.atomic.AtomicLong;
 
 final class SynchronizationPanel extends JPanel {
 
     private final Logger LOGGER = LoggerFactory.getLogger(SynchronizationPanel.class);
 
+    // the telemetry follows the playing video at most once per display frame
+    private static final int VIDEO_SYNC_FRAME_MILLIS = 16;
+
     private final VideoPlayer videoPlayer;
     private final TelemetryPlayer telemetryPlayer;
-    private InvalidationListener telemetryPlayerListener;
+    private final VideoSyncBridge telemetryPlayerListener = new VideoSyncBridge();
     // positive number indicates that gps data start after video
     private long telemetryDataOffset;
 
@@ -33,13 +39,6 @@ final class SynchronizationPanel extends JPanel {
 
         videoPlayer.setPreferredSize(new Dimension(450, 300));
         telemetryPlayer.setPreferredSize(new Dimension(350, 300));
-
-        telemetryPlayerListener = new InvalidationListener() {
-            @Override
-            public void invalidated(Observable observable) {
-                telemetryPlayer.seekByTime(videoPlayer.getCurrentTime() - telemetryDataOffset);
-            }
-        };
     }
 
     void requestPause() {
@@ -49,6 +48,7 @@ final class SynchronizationPanel extends JPanel {
 
     void unlock() {
         videoPlayer.removePlayListener(telemetryPlayerListener);
+        telemetryPlayerListener.stop();
         videoPlayer.enableFileControls(true);
         telemetryPlayer.enableFileControls(true);
         telemetryPlayer.enableControls(true);
@@ -100,4 +100,46 @@ final class SynchronizationPanel extends JPanel {
         LOGGER.debug("Telemetry time is {}", telemetryPlayer.getCurrentTime());
         LOGGER.debug("Offset is {}", telemetryDataOffset);
     }
+
+    /**
+     * Moves the telemetry with the playing video.
+     * <p>
+     * The video time changes on the JavaFX thread much more often than the display refreshes, so a change only
+     * keeps the latest video time. A timer applies it on the event dispatch thread once per display frame, and only
+     * an update that would draw nothing new (the same telemetry time) is skipped.
+     */
+    private final class VideoSyncBridge implements InvalidationListener, ActionListener {
+
+        private static final long NO_TIME = Long.MIN_VALUE;
+
+        private final AtomicLong pendingVideoTime = new AtomicLong(NO_TIME);
+        private final Timer timer = new Timer(VIDEO_SYNC_FRAME_MILLIS, this);
+
+        @Override
+        public void invalidated(Observable observable) {
+            pendingVideoTime.set(videoPlayer.getCurrentTime());
+            if (!timer.isRunning()) {
+                timer.start();
+            }
+        }
+
+        @Override
+        public void actionPerformed(ActionEvent e) {
+            final long videoTime = pendingVideoTime.getAndSet(NO_TIME);
+            if (videoTime == NO_TIME) {
+                // the video stopped changing, check again for a time kept while stopping
+                timer.stop();
+                if (pendingVideoTime.get() != NO_TIME) {
+                    timer.start();
+                }
+                return;
+            }
+            telemetryPlayer.followTime(videoTime - telemetryDataOffset);
+        }
+
+        void stop() {
+            timer.stop();
+            pendingVideoTime.set(NO_TIME);
+        }
+    }
 }
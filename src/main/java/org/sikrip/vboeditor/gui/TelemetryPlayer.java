@@ -3,8 +3,9 @@ package org.sikrip.vboeditor.gui;
 import org.sikrip.vboeditor.engine.VboEditor;
 import org.sikrip.vboeditor.helper.ErrorHandler;
 import org.sikrip.vboeditor.helper.TimeHelper;
-import org.sikrip.vboeditor.model.TraveledRouteCoordinate;
-import org.sikrip.vboeditor.model.TraveledRoutePoint;
+import org.sikrip.vboeditor.model.TelemetrySession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.swing.*;
 import javax.swing.event.ChangeEvent;
@@ -13,20 +14,28 @@ import javax.swing.filechooser.FileNameExtensionFilter;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.awt.geom.Point2D;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.awt.image.BufferedImage;
 import java.io.File;
-import java.util.ArrayList;
 import java.util.Hashtable;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.ExecutionException;
 
 final class TelemetryPlayer extends JPanel implements ActionListener, ChangeListener {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(TelemetryPlayer.class);
+
     private static final int MINIMUM_IMAGE_PADDING_IN_PX = 50;
     private static final int CURRENT_POSITION_MARKER_SIZE = 8;
+    // the playback does not redraw faster than the display
+    private static final int MIN_PLAYBACK_FRAME_MILLIS = 16;
+    private static final double[] PLAYBACK_RATES = {0.25, 0.5, 1, 2, 4, 8, 16};
 
     private final JButton fileChoose = new JButton("...");
     private final JTextField filePath = new JTextField();
+    private final JProgressBar loadProgress = new JProgressBar(0, 100);
+    private final JButton cancelLoad = new JButton("Cancel");
 
     private final SynchronizationPanel synchronizationPanel;
     private final TraveledRoutePanel traveledRoutePanel;
@@ -40,12 +49,18 @@ final class TelemetryPlayer extends JPanel implements ActionListener, ChangeList
     private final JButton next2 = new JButton(">>");
     private final JButton playPause = new JButton("Play");
     private final JButton reset = new JButton("Reset");
+    private final JComboBox<String> playbackRate = new JComboBox<>();
     private final JSlider seekSlider = new JSlider();
 
-    private final AtomicBoolean playFlag = new AtomicBoolean(false);
+    private final PlaybackClock playbackClock = new PlaybackClock();
+    private final Timer playbackTimer = new Timer(MIN_PLAYBACK_FRAME_MILLIS, this);
     private long gpsDataIntervalMillis;
     private int currentPositionIdx = 0;
-    private final List<TraveledRoutePoint> traveledRoutePoints = new ArrayList<>();
+    // the time since the first sample, may fall between samples when seeking by time
+    private long currentTimeMillis = 0;
+    private TelemetrySession telemetrySession;
+    private RouteProjection routeProjection;
+    private SwingWorker<TelemetrySession, TelemetrySession> loadWorker;
 
     TelemetryPlayer(SynchronizationPanel synchronizationPanel) {
 
@@ -72,6 +87,11 @@ final class TelemetryPlayer extends JPanel implements ActionListener, ChangeList
         panel.add(fileChoose);
         fileChoose.setToolTipText("Select a .vbo file that do not contain any video related data.");
         fileChoose.addActionListener(this);
+        panel.add(loadProgress);
+        panel.add(cancelLoad);
+        cancelLoad.setToolTipText("Stop loading the telemetry");
+        cancelLoad.addActionListener(this);
+        showLoading(false);
         return panel;
     }
 
@@ -84,6 +104,7 @@ final class TelemetryPlayer extends JPanel implements ActionListener, ChangeList
         buttons.add(next);
         buttons.add(next2);
         buttons.add(reset);
+        buttons.add(playbackRate);
 
         prev2.setToolTipText("Two steps back");
         prev.setToolTipText("One step back");
@@ -92,6 +113,12 @@ final class TelemetryPlayer extends JPanel implements ActionListener, ChangeList
 
         reset.setToolTipText("Go to the start");
 
+        for (double rate : PLAYBACK_RATES) {
+            playbackRate.addItem(rate < 1 ? rate + "x" : (int) rate + "x");
+        }
+        playbackRate.setSelectedItem("1x");
+        playbackRate.setToolTipText("Playback rate");
+
         final JPanel labels = new JPanel(new GridLayout(1, 2));
         labels.add(timeLabel);
         labels.add(speedLabel);
@@ -106,63 +133,127 @@ final class TelemetryPlayer extends JPanel implements ActionListener, ChangeList
         reset.addActionListener(this);
         next.addActionListener(this);
         next2.addActionListener(this);
+        playbackRate.addActionListener(this);
         seekSlider.addChangeListener(this);
         seekSlider.setValue(0);
     }
 
-    private void paintTraveledRoute() {
-        try {
-            calculateTraveledRoute(VboEditor.getTraveledRoute(filePath.getText()));
-            traveledRoutePanel.repaint();
-        } catch (Exception e) {
-            throw new RuntimeException("Cannot draw traveled route", e);
+    private void loadTelemetry() {
+        final JFileChooser fileChooser = new JFileChooser();
+        if (VboEditorApplication.getBrowsePath() != null) {
+            fileChooser.setCurrentDirectory(new File(VboEditorApplication.getBrowsePath()));
+        }
+        fileChooser.setFileFilter(new FileNameExtensionFilter(
+                "VBox data files", "vbo"));
+
+        if (fileChooser.showOpenDialog(this) == JFileChooser.APPROVE_OPTION) {
+            final File selectedFile = fileChooser.getSelectedFile();
+            VboEditorApplication.setBrowsePath(selectedFile.getParent());
+            loadTelemetry(selectedFile);
         }
     }
 
-    private void loadTelemetry() {
-        try {
-            final JFileChooser fileChooser = new JFileChooser();
-            if (VboEditorApplication.getBrowsePath() != null) {
-                fileChooser.setCurrentDirectory(new File(VboEditorApplication.getBrowsePath()));
+    /**
+     * Reads the given file in the background, the route is drawn as the samples are read.
+     */
+    private void loadTelemetry(final File file) {
+        filePath.setText("");
+        clearTraveledRoute();
+        synchronizationPanel.checkCanLock();
+        showLoading(true);
+
+        final long startNanos = System.nanoTime();
+        loadWorker = new SwingWorker<TelemetrySession, TelemetrySession>() {
+            @Override
+            protected TelemetrySession doInBackground() throws Exception {
+                return VboEditor.getTelemetrySession(file.getAbsolutePath(), (partialSession, rows, rowCount) -> {
+                    publish(partialSession);
+                    setProgress((int) (rows * 100 / Math.max(rowCount, 1)));
+                });
+            }
+
+            @Override
+            protected void process(List<TelemetrySession> partialSessions) {
+                // the partial sessions are coalesced, only the latest is drawn, the playback waits for the whole
+                final TelemetrySession partialSession = partialSessions.get(partialSessions.size() - 1);
+                if (loadWorker == this && !isDone() && !partialSession.isEmpty()) {
+                    if (routeProjection == null) {
+                        routeProjection = new RouteProjection(partialSession);
+                        traveledRoutePanel.invalidateRoute();
+                    } else {
+                        traveledRoutePanel.extendRoute(partialSession);
+                    }
+                }
             }
-            fileChooser.setFileFilter(new FileNameExtensionFilter(
-                    "VBox data files", "vbo"));
-
-            if (fileChooser.showOpenDialog(this) == JFileChooser.APPROVE_OPTION) {
-                File selectedFile = fileChooser.getSelectedFile();
-                filePath.setText(selectedFile.getAbsolutePath());
-                paintTraveledRoute();
-                setupSlider();
-                enableControls(true);
-                synchronizationPanel.checkCanLock();
-
-                VboEditorApplication.setBrowsePath(selectedFile.getParent());
+
+            @Override
+            protected void done() {
+                if (loadWorker != this) {
+                    return;
+                }
+                loadWorker = null;
+                showLoading(false);
+                if (isCancelled()) {
+                    clearTraveledRoute();
+                    return;
+                }
+                try {
+                    calculateTraveledRoute(get());
+                    LOGGER.debug("Loaded {} in {} ms", file, (System.nanoTime() - startNanos) / 1000000);
+                    traveledRoutePanel.invalidateRoute();
+                    filePath.setText(file.getAbsolutePath());
+                    setupSlider();
+                    enableControls(true);
+                    drawPosition();
+                    synchronizationPanel.checkCanLock();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException | RuntimeException e) {
+                    LOGGER.error("Could not load telemetry", e instanceof ExecutionException ? e.getCause() : e);
+                    clearTraveledRoute();
+                    ErrorHandler.showError("Could not load telemetry", "Invalid .vbo file", e);
+                }
+            }
+        };
+        loadWorker.addPropertyChangeListener(evt -> {
+            if ("progress".equals(evt.getPropertyName())) {
+                loadProgress.setValue((Integer) evt.getNewValue());
             }
-        } catch (Exception e) {
-            e.printStackTrace();
-            ErrorHandler.showError("Could not load telemetry", "Invalid .vbo file", e);
-            filePath.setText("");
+        });
+        loadWorker.execute();
+    }
+
+    private void cancelLoading() {
+        if (loadWorker != null) {
+            loadWorker.cancel(true);
         }
     }
 
+    private void showLoading(boolean loading) {
+        loadProgress.setValue(0);
+        loadProgress.setVisible(loading);
+        cancelLoad.setVisible(loading);
+        enableFileControls(!loading);
+        revalidate();
+    }
+
     private void setupSlider() {
         seekSlider.setMinimum(0);
-        seekSlider.setMaximum(traveledRoutePoints.size() - 1);
+        seekSlider.setMaximum(getRouteSize() - 1);
         seekSlider.setValue(0);
         Hashtable<Integer, JComponent> labelTable = new Hashtable<>();
         labelTable.put(0, new JLabel("0"));
-        final long timeMillis = traveledRoutePoints.get(traveledRoutePoints.size() - 1).getTime();
+        final long timeMillis = getRouteTime(getRouteSize() - 1);
         labelTable.put(seekSlider.getMaximum(), new JLabel(TimeHelper.getTimeString(timeMillis)));
         seekSlider.setLabelTable(labelTable);
         seekSlider.setPaintLabels(true);
     }
 
     private void reset() {
-        playFlag.set(false);
+        requestPause();
         currentPositionIdx = 0;
-        playPause.setText("Play");
-        seekSlider.setValue(currentPositionIdx);
-        traveledRoutePanel.repaint();
+        currentTimeMillis = 0;
+        drawPosition();
         enableScanControls(true);
     }
 
@@ -179,47 +270,56 @@ final class TelemetryPlayer extends JPanel implements ActionListener, ChangeList
         enableScanControls(enable);
         reset.setEnabled(enable);
         playPause.setEnabled(enable);
+        playbackRate.setEnabled(enable);
     }
 
     private void play() {
         playPause.setText("Pause");
         enableScanControls(false);
         enableFileControls(false);
-        playFlag.set(true);
-        final Thread playThread = new Thread(new Runnable() {
-            @Override
-            public void run() {
-                while (currentPositionIdx < traveledRoutePoints.size()) {
-                    if (playFlag.get()) {
-                        step(1);
-                        try {
-                            Thread.sleep(gpsDataIntervalMillis);
-                        } catch (InterruptedException e) {
-                            e.printStackTrace();
-                        }
-                    } else {
-                        break;
-                    }
-                }
-            }
-        });
-        playThread.start();
+        final long endTime = getRouteTime(getRouteSize() - 1);
+        playbackClock.start(currentTimeMillis < endTime ? currentTimeMillis : 0);
+        updatePlaybackTimerDelay();
+        playbackTimer.start();
+    }
+
+    /**
+     * Moves to the time of the playback clock, a late tick skips the samples it missed.
+     */
+    private void playbackTick() {
+        final long endTime = getRouteTime(getRouteSize() - 1);
+        final long time = playbackClock.getTime();
+        seekByTime(time);
+        if (time >= endTime) {
+            pause();
+        }
+    }
+
+    private void changePlaybackRate() {
+        playbackClock.setRate(PLAYBACK_RATES[playbackRate.getSelectedIndex()]);
+        updatePlaybackTimerDelay();
+    }
+
+    private void updatePlaybackTimerDelay() {
+        // a tick per sample, but not faster than the display
+        final int delay = (int) Math.max(MIN_PLAYBACK_FRAME_MILLIS, gpsDataIntervalMillis / playbackClock.getRate());
+        playbackTimer.setDelay(delay);
+        playbackTimer.setInitialDelay(delay);
     }
 
     private void drawPosition() {
-        if (traveledRoutePoints.isEmpty()) {
+        if (getRouteSize() == 0) {
             timeLabel.setText("");
             speedLabel.setText("");
             seekSlider.setValue(0);
             seekSlider.setVisible(true);
             enableControls(false);
-            traveledRoutePanel.repaint();
+            traveledRoutePanel.invalidateRoute();
         } else {
-            final long timeMillis = traveledRoutePoints.get(currentPositionIdx).getTime();
-            timeLabel.setText("Time: " + TimeHelper.getTimeString(timeMillis));
-            speedLabel.setText("Speed: " + traveledRoutePoints.get(currentPositionIdx).getSpeed());
+            timeLabel.setText("Time: " + TimeHelper.getTimeString(currentTimeMillis));
+            speedLabel.setText(String.format("Speed: %.2f", telemetrySession.getSpeedAt(currentTimeMillis)));
             seekSlider.setValue(currentPositionIdx);
-            traveledRoutePanel.repaint();
+            traveledRoutePanel.moveMarker();
         }
     }
 
@@ -227,92 +327,43 @@ final class TelemetryPlayer extends JPanel implements ActionListener, ChangeList
         currentPositionIdx = position;
         if (currentPositionIdx < 0) {
             currentPositionIdx = 0;
-        } else if (currentPositionIdx >= traveledRoutePoints.size()) {
-            currentPositionIdx = traveledRoutePoints.size() - 1;
+        } else if (currentPositionIdx >= getRouteSize()) {
+            currentPositionIdx = getRouteSize() - 1;
         }
+        currentTimeMillis = getRouteTime(currentPositionIdx);
         drawPosition();
     }
 
-    private void calculateTraveledRoute(final List<TraveledRouteCoordinate> traveledRouteCoordinates) {
-        if (traveledRouteCoordinates.isEmpty()) {
-            throw new RuntimeException("Cannot read travelled route");
-        }
-
-        final Dimension traveledRouteComponentSize = traveledRoutePanel.getSize();
-        gpsDataIntervalMillis = traveledRouteCoordinates.get(0).getGpsDataInterval();
-
-        traveledRoutePoints.clear();
-
-        final double actualWidth = traveledRouteComponentSize.getWidth();
-        final double actualHeight = traveledRouteComponentSize.getHeight();
-
-        // min and max coordinates, used in the computation below
-        Point2D.Double minXY = new Point2D.Double(-1, -1);
-        Point2D.Double maxXY = new Point2D.Double(-1, -1);
-
-        List<Point2D.Double> routePoints = new ArrayList<>();
-
-        for (TraveledRouteCoordinate coordinate : traveledRouteCoordinates) {
-
-            // convert to radian
-            double longitude = coordinate.getLongitude() * Math.PI / 180;
-            double latitude = coordinate.getLatitude() * Math.PI / 180;
-
-            // Actually this is not 100% acurate as it does not take into account the earth curvature
-            // but for the area of a track we assume that the earth is flat
-            Point2D.Double xy = new Point2D.Double(longitude, latitude);
-
-            // The reason we need to determine the min X and Y values is because in order to draw the map,
-            // we need to offset the position so that there will be no negative X and Y values
-            minXY.x = (minXY.x == -1) ? xy.x : Math.min(minXY.x, xy.x);
-            minXY.y = (minXY.y == -1) ? xy.y : Math.min(minXY.y, xy.y);
+    private void clearTraveledRoute() {
+        telemetrySession = null;
+        routeProjection = null;
+        currentPositionIdx = 0;
+        currentTimeMillis = 0;
+        drawPosition();
+    }
 
-            routePoints.add(xy);
+    private void calculateTraveledRoute(final TelemetrySession session) {
+        if (session.isEmpty()) {
+            throw new RuntimeException("Cannot read travelled route");
         }
-
-        for (Point2D.Double point : routePoints) {
-            point.x = point.x - minXY.x;
-            point.y = point.y - minXY.y;
-
-            // now, we need to keep track the max X and Y values
-            maxXY.x = (maxXY.x == -1) ? point.x : Math.max(maxXY.x, point.x);
-            maxXY.y = (maxXY.y == -1) ? point.y : Math.max(maxXY.y, point.y);
+        gpsDataIntervalMillis = session.getGpsDataInterval();
+        // the route drawn while loading is continued, only the samples it did not see are scanned
+        if (routeProjection == null) {
+            routeProjection = new RouteProjection(session);
+        } else {
+            routeProjection.extend(session);
         }
+        telemetrySession = session;
+        currentPositionIdx = 0;
+        currentTimeMillis = 0;
+    }
 
-        double paddingBothSides = MINIMUM_IMAGE_PADDING_IN_PX * 2;
-
-        // the actual drawing space for the map on the image
-        double mapWidth = actualWidth - paddingBothSides;
-        double mapHeight = actualHeight - paddingBothSides;
-
-        // determine the width and height ratio because we need to magnify the map to fit into the given image dimension
-        double mapWidthRatio = mapWidth / maxXY.x;
-        double mapHeightRatio = mapHeight / maxXY.y;
-
-        // using different ratios for width and height will cause the map to be stretched. So, we have to determine
-        // the global ratio that will perfectly fit into the given image dimension
-        double globalRatio = Math.min(mapWidthRatio, mapHeightRatio);
-
-        // now we need to readjust the padding to ensure the map is always drawn on the center of the given image dimension
-        double heightPadding = (actualHeight - (globalRatio * maxXY.y)) / 2;
-        double widthPadding = (actualWidth - (globalRatio * maxXY.x)) / 2;
-
-        for (int i = 0; i < routePoints.size(); i++) {
-            final TraveledRouteCoordinate coordinate = traveledRouteCoordinates.get(i);
-            final Point2D.Double point = routePoints.get(i);
-
-            // actual XY without transformation
-            //int adjustedX = (int) (widthPadding + (point.getX() * globalRatio));
-            //int adjustedY = (int) (heightPadding + (point.getY() * globalRatio));
-
-            // need to invert the XY since 0,0 starts at top left
-            int adjustedX = (int) (actualWidth - widthPadding - (point.getX() * globalRatio));
-            int adjustedY = (int) (actualHeight - heightPadding - (point.getY() * globalRatio));
-
-            traveledRoutePoints.add(new TraveledRoutePoint(adjustedX, adjustedY, i * gpsDataIntervalMillis,
-                    coordinate.getSpeed()));
-        }
+    private int getRouteSize() {
+        return telemetrySession != null ? telemetrySession.getSize() : 0;
+    }
 
+    private long getRouteTime(int idx) {
+        return telemetrySession.getElapsedTime(idx);
     }
 
     void enableFileControls(boolean b) {
@@ -321,7 +372,7 @@ final class TelemetryPlayer extends JPanel implements ActionListener, ChangeList
     }
 
     long getCurrentTime() {
-        return traveledRoutePoints.get(currentPositionIdx).getTime();
+        return currentTimeMillis;
     }
 
     String getFilePath() {
@@ -329,15 +380,20 @@ final class TelemetryPlayer extends JPanel implements ActionListener, ChangeList
     }
 
     private void playPause() {
-        if (playFlag.get()) {
+        if (playbackClock.isRunning()) {
             pause();
         } else {
             play();
         }
     }
 
+    /**
+     * Stops the playback, the controls are left as they are.
+     */
     void requestPause() {
-        playFlag.set(false);
+        playbackTimer.stop();
+        playbackClock.stop();
+        playPause.setText("Play");
     }
 
     void pause() {
@@ -348,55 +404,58 @@ final class TelemetryPlayer extends JPanel implements ActionListener, ChangeList
     }
 
     private void step(int amount) {
-        currentPositionIdx += amount;
-        if (currentPositionIdx < 0) {
-            currentPositionIdx = 0;
-        } else if (currentPositionIdx >= traveledRoutePoints.size()) {
-            currentPositionIdx = traveledRoutePoints.size() - 1;
-        }
-        drawPosition();
+        seekByPosition(currentPositionIdx + amount);
     }
 
+    /**
+     * Moves to the given time since the first sample, the position and speed are interpolated between samples.
+     */
     void seekByTime(long targetTime) {
-        final int positionGuess = (int) (targetTime / gpsDataIntervalMillis);
-        if (positionGuess < 0) {
-            seekByPosition(0);
-        } else if (positionGuess >= traveledRoutePoints.size()) {
-            seekByPosition(traveledRoutePoints.size() - 1);
-        } else {
-            int position = positionGuess;
-            long diff = Math.abs(targetTime - traveledRoutePoints.get(positionGuess).getTime());
+        if (getRouteSize() == 0) {
+            return;
+        }
+        final long time = clampTime(targetTime);
+        final int sample = telemetrySession.getSampleAt(time);
+        // the nearest sample, for stepping and the slider
+        currentPositionIdx = telemetrySession.getSampleFraction(time) < 0.5 ? sample : sample + 1;
+        currentTimeMillis = time;
+        drawPosition();
+    }
 
-            if (positionGuess > 0) {
-                long prevDiff = Math.abs(targetTime - traveledRoutePoints.get(positionGuess - 1).getTime());
-                if (prevDiff < diff) {
-                    position = positionGuess - 1;
-                }
-            }
-            if (positionGuess < traveledRoutePoints.size() - 1) {
-                long prevNext = Math.abs(targetTime - traveledRoutePoints.get(positionGuess + 1).getTime());
-                if (prevNext < diff) {
-                    position = positionGuess + 1;
-                }
-            }
-            seekByPosition(position);
+    /**
+     * Moves to the given time like {@link #seekByTime(long)}, only when it changes what is drawn, for following a
+     * playing video. The marker and the speed are interpolated and the time is shown to the millisecond, so any
+     * other time within the session is drawn differently, even between the samples of a slow log.
+     */
+    void followTime(long targetTime) {
+        if (getRouteSize() > 0 && clampTime(targetTime) != currentTimeMillis) {
+            seekByTime(targetTime);
         }
     }
 
+    private long clampTime(long timeMillis) {
+        return Math.max(0, Math.min(timeMillis, getRouteTime(getRouteSize() - 1)));
+    }
+
     boolean isLoaded() {
         return !filePath.getText().isEmpty();
     }
 
     @Override
     public void stateChanged(ChangeEvent e) {
-        seekByPosition(seekSlider.getValue());
+        // the slider is also moved when the position is drawn
+        if (seekSlider.getValue() != currentPositionIdx) {
+            seekByPosition(seekSlider.getValue());
+        }
     }
 
     @Override
     public void actionPerformed(ActionEvent e) {
         final Object source = e.getSource();
 
-        if (source == prev2) {
+        if (source == playbackTimer) {
+            playbackTick();
+        } else if (source == prev2) {
             step(-2);
         } else if (source == prev) {
             step(-1);
@@ -410,28 +469,119 @@ final class TelemetryPlayer extends JPanel implements ActionListener, ChangeList
             step(2);
         } else if (source == fileChoose) {
             loadTelemetry();
+        } else if (source == playbackRate) {
+            changePlaybackRate();
+        } else if (source == cancelLoad) {
+            cancelLoading();
         }
     }
 
+    /**
+     * Draws the route from an image that is rendered once per route and size, so moving the marker only repaints
+     * the areas of its old and new position. The image is rendered from the route simplified for the panel size,
+     * while loading the parts read since are drawn on it.
+     */
     private class TraveledRoutePanel extends JPanel {
 
+        private BufferedImage routeImage;
+        // the area of the marker as last painted
+        private final Rectangle markerBounds = new Rectangle();
+
+        TraveledRoutePanel() {
+            addComponentListener(new ComponentAdapter() {
+                @Override
+                public void componentResized(ComponentEvent e) {
+                    invalidateRoute();
+                }
+            });
+        }
+
+        /**
+         * Renders the route again, to be called when it is loaded.
+         */
+        void invalidateRoute() {
+            routeImage = null;
+            repaint();
+        }
+
+        /**
+         * Continues the route with the samples added to a loading session, only the added part is drawn on the
+         * rendered route unless its bounds grew.
+         */
+        void extendRoute(TelemetrySession session) {
+            final int from = routeProjection.getSize();
+            if (routeProjection.extend(session) || routeImage == null) {
+                invalidateRoute();
+                return;
+            }
+            final Polygon part = routeProjection.simplify(Math.max(from - 1, 0), session.getSize());
+            final Graphics2D g = routeImage.createGraphics();
+            try {
+                g.setColor(getForeground());
+                g.drawPolyline(part.xpoints, part.ypoints, part.npoints);
+            } finally {
+                g.dispose();
+            }
+            final Rectangle bounds = part.getBounds();
+            repaint(bounds.x, bounds.y, bounds.width + 1, bounds.height + 1);
+        }
+
+        /**
+         * Repaints the marker at the current position.
+         */
+        void moveMarker() {
+            repaint(markerBounds);
+            if (getRouteSize() > 0) {
+                repaint(getMarkerBounds());
+            }
+        }
+
+        private Rectangle getMarkerBounds() {
+            // the marker is placed with the full resolution session, interpolated between samples
+            final int x = (int) routeProjection.getX(telemetrySession.getLongitudeAt(currentTimeMillis));
+            final int y = (int) routeProjection.getY(telemetrySession.getLatitudeAt(currentTimeMillis));
+            // one more pixel for the edges of the oval
+            return new Rectangle(x - CURRENT_POSITION_MARKER_SIZE / 2, y - CURRENT_POSITION_MARKER_SIZE / 2,
+                    CURRENT_POSITION_MARKER_SIZE + 1, CURRENT_POSITION_MARKER_SIZE + 1);
+        }
+
+        private void renderRoute() {
+            routeProjection.fit(getWidth(), getHeight(), MINIMUM_IMAGE_PADDING_IN_PX);
+            final Polygon route = routeProjection.simplify();
+
+            final GraphicsConfiguration graphicsConfiguration = getGraphicsConfiguration();
+            routeImage = graphicsConfiguration != null
+                    ? graphicsConfiguration.createCompatibleImage(getWidth(), getHeight(), Transparency.TRANSLUCENT)
+                    : new BufferedImage(getWidth(), getHeight(), BufferedImage.TYPE_INT_ARGB);
+            final Graphics2D g = routeImage.createGraphics();
+            try {
+                g.setColor(getForeground());
+                if (getRouteSize() > 0) {
+                    g.drawPolygon(route);
+                } else {
+                    // still loading, the route is continued by extendRoute
+                    g.drawPolyline(route.xpoints, route.ypoints, route.npoints);
+                }
+            } finally {
+                g.dispose();
+            }
+        }
+
         @Override
         public void paintComponent(Graphics g) {
             super.paintComponent(g);
 
-            if (!traveledRoutePoints.isEmpty()) {
-                final Polygon traveledRoute = new Polygon();
-
-                for (TraveledRoutePoint traveledRoutePoint : traveledRoutePoints) {
-                    traveledRoute.addPoint(traveledRoutePoint.getX(), traveledRoutePoint.getY());
+            if (routeProjection != null && getWidth() > 0 && getHeight() > 0) {
+                if (routeImage == null) {
+                    renderRoute();
                 }
-                g.drawPolygon(traveledRoute);
+                g.drawImage(routeImage, 0, 0, null);
+            }
+            if (getRouteSize() > 0 && getWidth() > 0 && getHeight() > 0) {
+                markerBounds.setBounds(getMarkerBounds());
                 g.setColor(Color.red);
-
-                TraveledRoutePoint currentPosition = traveledRoutePoints.get(currentPositionIdx);
-                g.fillOval(currentPosition.getX() - CURRENT_POSITION_MARKER_SIZE / 2,
-                        currentPosition.getY() - CURRENT_POSITION_MARKER_SIZE / 2,
-                        CURRENT_POSITION_MARKER_SIZE, CURRENT_POSITION_MARKER_SIZE);
+                g.fillOval(markerBounds.x, markerBounds.y, CURRENT_POSITION_MARKER_SIZE,
+                        CURRENT_POSITION_MARKER_SIZE);
             }
         }
     }
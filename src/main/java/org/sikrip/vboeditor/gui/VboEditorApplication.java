@@ -2,6 +2,7 @@ package org.sikrip.vboeditor.gui;
 
 import com.google.common.base.Strings;
 import org.apache.http.HttpEntity;
+import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.impl.client.CloseableHttpClient;
@@ -15,8 +16,13 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
 import java.io.File;
 import java.io.IOException;
+import java.util.concurrent.ExecutionException;
 
 import static org.sikrip.vboeditor.helper.Constants.*;
 
@@ -35,10 +41,19 @@ final class VboEditorApplication extends JFrame implements ActionListener {
     private final JButton outputDirChoose = new JButton("...");
     private final JTextField sessionName = new JTextField();
     private final JCheckBox syncLock = new JCheckBox("Lock video / telemetry data");
+    private final JComboBox<String> videoPlacement = new JComboBox<>();
     private final JButton performIntegration = new JButton("Integrate video / telemetry data");
 
     private static String browsePath = null;
 
+    private static final VboEditor.VideoPlacement[] VIDEO_PLACEMENTS = {VboEditor.VideoPlacement.COPY,
+            VboEditor.VideoPlacement.HARD_LINK, VboEditor.VideoPlacement.SYMBOLIC_LINK, VboEditor.VideoPlacement.MOVE};
+    private static final String[] VIDEO_PLACEMENT_NAMES = {"Copy", "Hard link", "Symbolic link", "Move"};
+
+    // the version check is skipped when this system property is true
+    private static final String VERSION_CHECK_DISABLED_PROPERTY = "vbotools.versionCheck.disabled";
+    private static final int VERSION_CHECK_TIMEOUT_MILLIS = 3000;
+
     private VboEditorApplication() throws HeadlessException {
         this.synchronizationPanel = new SynchronizationPanel(this);
         this.fileConverterPanel = new FileConverterPanel(this);
@@ -106,6 +121,18 @@ final class VboEditorApplication extends JFrame implements ActionListener {
 
         panel = new JPanel();
         panel.add(syncLock);
+        label = new JLabel("Video file: ");
+        panel.add(label);
+        for (String name : VIDEO_PLACEMENT_NAMES) {
+            videoPlacement.addItem(name);
+        }
+        videoPlacement.setSelectedIndex(0);
+        panel.add(videoPlacement);
+        toolTipText = "<html>How the video file of the session is created from the original video.<br>"
+                + "A hard link needs both files on the same file system, "
+                + "a symbolic link breaks if the original is moved.</html>";
+        label.setToolTipText(toolTipText);
+        videoPlacement.setToolTipText(toolTipText);
         panel.add(performIntegration);
         performIntegration.setEnabled(false);
         southPanel.add(panel, BorderLayout.CENTER);
@@ -179,33 +206,86 @@ final class VboEditorApplication extends JFrame implements ActionListener {
             final VboEditor.VideoType videoType = getVideoType();
 
             final long gpsDataTotalOffsetMillis = synchronizationPanel.getTelemetryDataOffset();
+            final VboEditor.VideoPlacement placement = VIDEO_PLACEMENTS[videoPlacement.getSelectedIndex()];
+
+            final JDialog progressDialog = new JDialog(this, "Integrating video / telemetry data", true);
+            final JProgressBar progressBar = new JProgressBar(0, 100);
+            final JButton cancel = new JButton("Cancel");
 
             final Component messageDialogParent = this;
-            SwingWorker<Void, Void> worker = new SwingWorker<Void, Void>() {
+            // the vbo and the video files are created concurrently
+            final SwingWorker<Void, Void> worker = new SwingWorker<Void, Void>() {
                 @Override
-                protected Void doInBackground() {
+                protected Void doInBackground() throws Exception {
                     try {
-                        VboEditor.createVboWithVideoMetadata(outputDir, vboFilePath, videoType, sessionName,
-                                (int) gpsDataTotalOffsetMillis);
-                        VboEditor.createVideoFile(outputDir, videoFilePath, sessionName);
-                    } catch (Exception e) {
-                        JOptionPane.showMessageDialog(messageDialogParent, e.getMessage(), "An error occurred",
-                                JOptionPane.ERROR_MESSAGE);
-                        return null;
+                        VboEditor.createSessionFiles(outputDir, vboFilePath, videoFilePath, videoType, sessionName,
+                                (int) gpsDataTotalOffsetMillis, placement,
+                                (done, total) -> setProgress((int) (done * 100 / Math.max(total, 1))));
+                    } finally {
+                        // a cancelled worker is done immediately, the dialog stays until the partial files are removed
+                        SwingUtilities.invokeLater(new Runnable() {
+                            @Override
+                            public void run() {
+                                progressDialog.dispose();
+                                if (isCancelled()) {
+                                    JOptionPane.showMessageDialog(messageDialogParent, "Integration cancelled",
+                                            "Cancelled", JOptionPane.INFORMATION_MESSAGE);
+                                }
+                            }
+                        });
                     }
-                    JOptionPane.showMessageDialog(messageDialogParent,
-                            "Check " + outputDir + "/" + sessionName + " for video and vbo files!", "Done!",
-                            JOptionPane.INFORMATION_MESSAGE);
                     return null;
                 }
 
                 @Override
                 protected void done() {
-                    hideWaitDlg();
+                    if (isCancelled()) {
+                        return;
+                    }
+                    try {
+                        get();
+                        JOptionPane.showMessageDialog(messageDialogParent,
+                                "Check " + outputDir + "/" + sessionName + " for video and vbo files!", "Done!",
+                                JOptionPane.INFORMATION_MESSAGE);
+                    } catch (ExecutionException e) {
+                        LOGGER.error("Integration failed", e.getCause());
+                        JOptionPane.showMessageDialog(messageDialogParent, e.getCause().getMessage(),
+                                "An error occurred", JOptionPane.ERROR_MESSAGE);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
                 }
             };
+            worker.addPropertyChangeListener(new PropertyChangeListener() {
+                @Override
+                public void propertyChange(PropertyChangeEvent evt) {
+                    if ("progress".equals(evt.getPropertyName())) {
+                        progressBar.setValue((Integer) evt.getNewValue());
+                    }
+                }
+            });
+            cancel.addActionListener(new ActionListener() {
+                @Override
+                public void actionPerformed(ActionEvent e) {
+                    cancel.setEnabled(false);
+                    progressBar.setString("Cancelling...");
+                    worker.cancel(true);
+                }
+            });
+
+            progressBar.setStringPainted(true);
+            final JPanel progressPanel = new JPanel(new BorderLayout(5, 5));
+            progressPanel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+            progressPanel.add(new JLabel("Creating the vbo and video files..."), BorderLayout.NORTH);
+            progressPanel.add(progressBar, BorderLayout.CENTER);
+            progressPanel.add(cancel, BorderLayout.EAST);
+            progressDialog.getContentPane().add(progressPanel);
+            progressDialog.setDefaultCloseOperation(WindowConstants.DO_NOTHING_ON_CLOSE);
+            progressDialog.pack();
+            progressDialog.setLocationRelativeTo(this);
+
             worker.execute();
-            showWaitDlg();
+            progressDialog.setVisible(true);
         } catch (Exception e) {
             JOptionPane.showMessageDialog(this, e.getMessage(), "An error occurred", JOptionPane.ERROR_MESSAGE);
         }
@@ -286,52 +366,75 @@ final class VboEditorApplication extends JFrame implements ActionListener {
     }
 
     public static void main(String[] args) {
+        final long startNanos = System.nanoTime();
         SwingUtilities.invokeLater(new Runnable() {
             public void run() {
-                try {
-                    checkVersion();
-                } catch (Exception e) {
-                    LOGGER.error("Could not get the current version number", e);
-                }
                 final VboEditorApplication editorGui = new VboEditorApplication();
                 editorGui.createGui();
                 editorGui.addActionListeners();
                 editorGui.pack();
                 editorGui.setLocationRelativeTo(null);
                 editorGui.setResizable(false);
+                editorGui.addWindowListener(new WindowAdapter() {
+                    @Override
+                    public void windowOpened(WindowEvent e) {
+                        LOGGER.info("Window opened {} ms after start", (System.nanoTime() - startNanos) / 1000000);
+                    }
+                });
                 editorGui.setVisible(true);
                 editorGui.setDefaultCloseOperation(WindowConstants.EXIT_ON_CLOSE);
             }
         });
+        // queued after the window, so any update message is shown over it
+        if (!Boolean.getBoolean(VERSION_CHECK_DISABLED_PROPERTY)) {
+            startVersionCheck();
+        }
     }
 
-    private static void checkVersion() throws IOException {
-        CloseableHttpResponse response = null;
-        try {
-            CloseableHttpClient httpclient = HttpClients.createDefault();
-            HttpGet httpGet = new HttpGet(VERSION_URL);
-            response = httpclient.execute(httpGet);
-
-            HttpEntity entity = response.getEntity();
+    private static void startVersionCheck() {
+        final Thread versionCheck = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    final String latestVersionTag = getLatestVersionTag();
+                    if (!VERSION_TAG.toLowerCase().equals(latestVersionTag)) {
+                        SwingUtilities.invokeLater(new Runnable() {
+                            @Override
+                            public void run() {
+                                JOptionPane.showMessageDialog(null,
+                                        String.format("New version (%s) is available get it from www.vbotools.com.",
+                                                latestVersionTag),
+                                        "Update your version",
+                                        JOptionPane.INFORMATION_MESSAGE);
+                            }
+                        });
+                    }
+                } catch (Exception e) {
+                    LOGGER.warn("Could not get the current version number: {}", e.toString());
+                }
+            }
+        }, "version-check");
+        versionCheck.setDaemon(true);
+        versionCheck.start();
+    }
 
+    private static String getLatestVersionTag() throws IOException {
+        final RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(VERSION_CHECK_TIMEOUT_MILLIS)
+                .setConnectionRequestTimeout(VERSION_CHECK_TIMEOUT_MILLIS)
+                .setSocketTimeout(VERSION_CHECK_TIMEOUT_MILLIS)
+                .build();
+        try (CloseableHttpClient httpclient = HttpClients.custom().setDefaultRequestConfig(requestConfig).build();
+             CloseableHttpResponse response = httpclient.execute(new HttpGet(VERSION_URL))) {
+            final HttpEntity entity = response.getEntity();
             final String content = EntityUtils.toString(entity);
 
-            final int start = content.indexOf(VERSION_START) + VERSION_START.length();
+            final int start = content.indexOf(VERSION_START);
             final int end = content.indexOf(VERSION_END);
-
-            final String latestVersionTag = content.substring(start, end).toLowerCase();
-            EntityUtils.consume(entity);
-
-            if(!VERSION_TAG.toLowerCase().equals(latestVersionTag)){
-                JOptionPane.showMessageDialog(null,
-                        String.format("New version (%s) is available get it from www.vbotools.com.", latestVersionTag),
-                        "Update your version",
-                        JOptionPane.INFORMATION_MESSAGE);
-            }
-        } finally {
-            if (response != null) {
-                response.close();
+            if (start < 0 || end < start) {
+                throw new IOException("Cannot find the version tag in the response");
             }
+            return content.substring(start + VERSION_START.length(), end).toLowerCase();
         }
     }
 }
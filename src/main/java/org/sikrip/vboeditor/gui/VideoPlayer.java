@@ -38,7 +38,9 @@ final class VideoPlayer extends JPanel implements ActionListener, ChangeListener
     private final SynchronizationPanel synchronizationPanel;
     private MediaPlayer mediaPlayer;
     private final java.util.List<InvalidationListener> playListeners = new ArrayList<>();
-    private final JFXPanel videoPanel;
+    // created with the first video, creating it initializes the JavaFX toolkit
+    private JFXPanel videoPanel;
+    private final JPanel videoContainer = new JPanel(new BorderLayout());
 
     private final JPanel controlsPanel = new JPanel(new BorderLayout());
     private final JLabel timeLabel = new JLabel();
@@ -54,11 +56,8 @@ final class VideoPlayer extends JPanel implements ActionListener, ChangeListener
         this.synchronizationPanel = synchronizationPanel;
         setBorder(BorderFactory.createTitledBorder("Video (.avi, .mp4)"));
 
-        // inits Java FX toolkit
-        videoPanel = new JFXPanel();
-
         setLayout(new BorderLayout());
-        add(videoPanel, BorderLayout.CENTER);
+        add(videoContainer, BorderLayout.CENTER);
 
         final JPanel northPanel = new JPanel();
         northPanel.setLayout(new BoxLayout(northPanel, BoxLayout.LINE_AXIS));
@@ -107,6 +106,12 @@ final class VideoPlayer extends JPanel implements ActionListener, ChangeListener
     private void loadVideoPanel() {
         try {
             Dimension size = getSize();
+            if (videoPanel == null) {
+                // inits Java FX toolkit
+                videoPanel = new JFXPanel();
+                videoContainer.add(videoPanel, BorderLayout.CENTER);
+                videoContainer.revalidate();
+            }
             final File videoFile = new File(filePath.getText());
             final Media media = new Media(videoFile.toURI().toURL().toString());
             mediaPlayer = new MediaPlayer(media);
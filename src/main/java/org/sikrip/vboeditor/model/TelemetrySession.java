@@ -0,0 +1,224 @@
+package org.sikrip.vboeditor.model;
+
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Column oriented representation of the GNSS data of a telemetry session.
+ * <p>
+ * Each value is kept in a primitive array indexed by the sample number, so a sample costs 32 bytes
+ * (plus 8 bytes per additional channel) and scanning a column is a plain array scan. The elapsed times take 8 more
+ * bytes per sample once used, see {@link #getElapsedTime(int)}.
+ */
+public final class TelemetrySession {
+
+    private static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+
+    private final int size;
+    private final long gpsDataInterval;
+    private final long[] time;
+    private final double[] latitude;
+    private final double[] longitude;
+    private final double[] speed;
+    private final Map<String, double[]> channels;
+    // computed on first use, the partial sessions of a loading file only need the positions
+    private volatile long[] elapsedTime;
+
+    /**
+     * Creates a session on top of the given columns, the columns are not copied.
+     *
+     * @param size            the number of samples, the columns may be longer than this
+     * @param gpsDataInterval the data sampling interval in milliseconds
+     * @param time            the time of each sample in milliseconds
+     * @param latitude        the latitude of each sample
+     * @param longitude       the longitude of each sample
+     * @param speed           the speed of each sample in km/h
+     * @param channels        any additional channel of the session keyed by its header name
+     */
+    public TelemetrySession(int size, long gpsDataInterval, long[] time, double[] latitude, double[] longitude,
+            double[] speed, Map<String, double[]> channels) {
+        if (time.length < size || latitude.length < size || longitude.length < size || speed.length < size) {
+            throw new IllegalArgumentException("Columns are shorter than the number of samples");
+        }
+        for (double[] channel : channels.values()) {
+            if (channel.length < size) {
+                throw new IllegalArgumentException("Channels are shorter than the number of samples");
+            }
+        }
+        this.size = size;
+        this.gpsDataInterval = gpsDataInterval;
+        this.time = time;
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.speed = speed;
+        this.channels = Collections.unmodifiableMap(new LinkedHashMap<>(channels));
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public long getGpsDataInterval() {
+        return gpsDataInterval;
+    }
+
+    public long getTime(int sample) {
+        return time[checkSample(sample)];
+    }
+
+    public double getLatitude(int sample) {
+        return latitude[checkSample(sample)];
+    }
+
+    public double getLongitude(int sample) {
+        return longitude[checkSample(sample)];
+    }
+
+    public double getSpeed(int sample) {
+        return speed[checkSample(sample)];
+    }
+
+    /**
+     * Gets the time of a sample relative to the first sample, a session that crosses midnight keeps counting.
+     * The times are unwrapped sample by sample, so a session of any length can cross midnight, while a time slightly
+     * before the previous one (e.g. a logger glitch) is not taken as the next day.
+     *
+     * @param sample the sample
+     * @return the time since the first sample in milliseconds, negative for a sample before the first one
+     */
+    public long getElapsedTime(int sample) {
+        return getElapsedTimes()[checkSample(sample)];
+    }
+
+    private long[] getElapsedTimes() {
+        long[] elapsed = elapsedTime;
+        if (elapsed == null) {
+            // computing it twice on a race is harmless
+            elapsed = new long[size];
+            long dayOffset = 0;
+            for (int i = 1; i < size; i++) {
+                final long delta = time[i] - time[i - 1];
+                if (delta < -MILLIS_PER_DAY / 2) {
+                    // crossed midnight
+                    dayOffset += MILLIS_PER_DAY;
+                } else if (delta > MILLIS_PER_DAY / 2) {
+                    // back before midnight, after a sample just past it
+                    dayOffset -= MILLIS_PER_DAY;
+                }
+                elapsed[i] = time[i] - time[0] + dayOffset;
+            }
+            elapsedTime = elapsed;
+        }
+        return elapsed;
+    }
+
+    /**
+     * Finds the last sample at or before the given time with a binary search on the sample times, so missing
+     * samples or a variable rate do not affect the result.
+     *
+     * @param elapsedTime the time since the first sample in milliseconds
+     * @return the last sample at or before the given time, the first sample for negative times
+     */
+    public int getSampleAt(long elapsedTime) {
+        checkSample(0);
+        int low = 0;
+        int high = size - 1;
+        while (low < high) {
+            // upper middle, so low always advances
+            final int middle = (low + high + 1) >>> 1;
+            if (getElapsedTime(middle) <= elapsedTime) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @param elapsedTime the time since the first sample in milliseconds
+     * @return the latitude at the given time, linearly interpolated between the nearest samples
+     */
+    public double getLatitudeAt(long elapsedTime) {
+        return interpolate(latitude, elapsedTime);
+    }
+
+    /**
+     * @param elapsedTime the time since the first sample in milliseconds
+     * @return the longitude at the given time, linearly interpolated between the nearest samples
+     */
+    public double getLongitudeAt(long elapsedTime) {
+        return interpolate(longitude, elapsedTime);
+    }
+
+    /**
+     * @param elapsedTime the time since the first sample in milliseconds
+     * @return the speed at the given time, linearly interpolated between the nearest samples
+     */
+    public double getSpeedAt(long elapsedTime) {
+        return interpolate(speed, elapsedTime);
+    }
+
+    /**
+     * @param elapsedTime the time since the first sample in milliseconds
+     * @return how far the given time is from the sample found by {@link #getSampleAt(long)} towards the next one,
+     * from 0 (inclusive) to 1 (exclusive), 0 before the first and after the last sample
+     */
+    public double getSampleFraction(long elapsedTime) {
+        return getSampleFraction(getSampleAt(elapsedTime), elapsedTime);
+    }
+
+    private double getSampleFraction(int sample, long elapsedTime) {
+        if (sample == size - 1) {
+            return 0;
+        }
+        final long sampleTime = getElapsedTime(sample);
+        final long interval = getElapsedTime(sample + 1) - sampleTime;
+        if (elapsedTime <= sampleTime || interval <= 0) {
+            return 0;
+        }
+        return (double) (elapsedTime - sampleTime) / interval;
+    }
+
+    private double interpolate(double[] column, long elapsedTime) {
+        final int sample = getSampleAt(elapsedTime);
+        final double fraction = getSampleFraction(sample, elapsedTime);
+        if (fraction == 0) {
+            return column[sample];
+        }
+        return column[sample] + (column[sample + 1] - column[sample]) * fraction;
+    }
+
+    /**
+     * @return the names of the additional channels, in header order
+     */
+    public Set<String> getChannelNames() {
+        return channels.keySet();
+    }
+
+    /**
+     * Gets the values of an additional channel.
+     * The returned array is the actual column (do not modify it) and only its first {@link #getSize()} values
+     * are valid.
+     *
+     * @param channelName the header name of the channel
+     * @return the values of the channel or null if there is no such channel
+     */
+    public double[] getChannel(String channelName) {
+        return channels.get(channelName);
+    }
+
+    private int checkSample(int sample) {
+        if (sample < 0 || sample >= size) {
+            throw new IndexOutOfBoundsException(String.format("Sample %d, size %d", sample, size));
+        }
+        return sample;
+    }
+}
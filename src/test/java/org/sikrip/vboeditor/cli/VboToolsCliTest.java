@@ -0,0 +1,130 @@
+package org.sikrip.vboeditor.cli;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sikrip.vboeditor.engine.VboEditor;
+import org.sikrip.vboeditor.model.TelemetrySession;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Locale;
+
+import static junit.framework.Assert.assertTrue;
+import static junit.framework.TestCase.assertEquals;
+import static org.sikrip.vboeditor.TestHelper.getTestResourceUrl;
+
+/**
+ * Tests for {@link VboToolsCli}.
+ */
+public class VboToolsCliTest {
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream err = new ByteArrayOutputStream();
+    private final VboToolsCli cli = new VboToolsCli(new PrintStream(out, true), new PrintStream(err, true));
+
+    @Test
+    public void verifyInvalidArgumentsPrintUsage() {
+        assertEquals(VboToolsCli.EXIT_USAGE, cli.run(new String[0]));
+        assertEquals(VboToolsCli.EXIT_USAGE, cli.run(new String[]{"unknown"}));
+        assertEquals(VboToolsCli.EXIT_USAGE, cli.run(new String[]{"dbn2vbo", "only-source.dbn"}));
+        assertEquals(VboToolsCli.EXIT_USAGE, cli.run(new String[]{"route", "a.vbo", "b.csv", "extra"}));
+        assertEquals(VboToolsCli.EXIT_USAGE, cli.run(new String[]{"batch", "vbo2dbn", ".", "--threads", "x"}));
+        assertTrue(err.toString().contains("Usage:"));
+    }
+
+    @Test
+    public void verifyConversionsAndRoute() throws IOException {
+        final String vboFile = getTestResourceUrl("/sample.vbo").getPath();
+        final File dbnFile = new File(temporaryFolder.getRoot(), "sample.dbn");
+        final File convertedVboFile = new File(temporaryFolder.getRoot(), "sample.vbo");
+        final File routeFile = new File(temporaryFolder.getRoot(), "route.csv");
+
+        assertEquals(VboToolsCli.EXIT_OK, cli.run(new String[]{"vbo2dbn", vboFile, dbnFile.getPath()}));
+        assertEquals(VboToolsCli.EXIT_OK,
+                cli.run(new String[]{"dbn2vbo", dbnFile.getPath(), convertedVboFile.getPath()}));
+        assertEquals(VboToolsCli.EXIT_OK, cli.run(new String[]{"route", vboFile, routeFile.getPath()}));
+
+        final List<String> route = Files.readAllLines(routeFile.toPath(), StandardCharsets.US_ASCII);
+        assertEquals("time,latitude,longitude,speed", route.get(0));
+        assertTrue(route.size() > 1);
+        assertEquals(4, route.get(1).split(",").length);
+
+        assertEquals(VboToolsCli.EXIT_FAILED,
+                cli.run(new String[]{"dbn2vbo", new File(temporaryFolder.getRoot(), "missing.dbn").getPath(),
+                        new File(temporaryFolder.getRoot(), "missing.vbo").getPath()}));
+    }
+
+    @Test
+    public void verifyIntegration() {
+        final String vboFile = getTestResourceUrl("/sample.vbo").getPath();
+        final String videoFile = getTestResourceUrl("/sample.avi").getPath();
+        final String outputDir = temporaryFolder.getRoot().getPath();
+
+        assertEquals(VboToolsCli.EXIT_OK,
+                cli.run(new String[]{"integrate", vboFile, videoFile, outputDir, "session", "--offset", "-1500"}));
+        assertTrue(new File(outputDir, "session/sessionData.vbo").isFile());
+        assertTrue(new File(outputDir, "session/session0001.avi").isFile());
+    }
+
+    @Test
+    public void verifySyncOffset() throws IOException {
+        final String vboFile = getTestResourceUrl("/sample.vbo").getPath();
+        final TelemetrySession session = VboEditor.getTelemetrySession(vboFile);
+        final File motionFile = new File(temporaryFolder.getRoot(), "motion.csv");
+
+        // a video that starts 2.5 seconds before the telemetry, with a motion that follows the speed
+        final StringBuilder motion = new StringBuilder("time,motion\n");
+        for (long time = 0; time < session.getElapsedTime(session.getSize() - 1) + 2500; time += 40) {
+            motion.append(time).append(',')
+                    .append(String.format(Locale.ROOT, "%.3f", session.getSpeedAt(time - 2500) / 10)).append('\n');
+        }
+        Files.write(motionFile.toPath(), motion.toString().getBytes(StandardCharsets.US_ASCII));
+
+        assertEquals(VboToolsCli.EXIT_OK,
+                cli.run(new String[]{"syncoffset", vboFile, motionFile.getPath(), "--max-offset", "10000"}));
+        final String output = out.toString().trim();
+        assertTrue(output, output.startsWith("Offset "));
+        final long offset = Long.parseLong(output.substring("Offset ".length(), output.indexOf(" ms")));
+        assertTrue(output, Math.abs(offset - 2500) <= 10);
+
+        assertEquals(VboToolsCli.EXIT_USAGE,
+                cli.run(new String[]{"syncoffset", vboFile, motionFile.getPath(), "--profile", "x"}));
+    }
+
+    @Test
+    public void verifySyncOffsetMotionInSeconds() throws IOException {
+        final String vboFile = getTestResourceUrl("/sample.vbo").getPath();
+        final TelemetrySession session = VboEditor.getTelemetrySession(vboFile);
+        final File motionFile = new File(temporaryFolder.getRoot(), "motion.csv");
+
+        // like the pts_time of ffmpeg, without the leading zero of the first second
+        final StringBuilder motion = new StringBuilder("pts_time,scene\n");
+        for (long time = 0; time < session.getElapsedTime(session.getSize() - 1) + 2500; time += 40) {
+            motion.append(String.format(Locale.ROOT, "%.3f", time / 1000.0).replaceFirst("^0\\.", ".")).append(',')
+                    .append(String.format(Locale.ROOT, "%.3f", session.getSpeedAt(time - 2500) / 10)).append('\n');
+        }
+        Files.write(motionFile.toPath(), motion.toString().getBytes(StandardCharsets.US_ASCII));
+
+        assertEquals(VboToolsCli.EXIT_OK, cli.run(new String[]{"syncoffset", vboFile, motionFile.getPath(),
+                "--max-offset", "10000", "--time-unit", "s"}));
+        final String output = out.toString().trim();
+        final long offset = Long.parseLong(output.substring("Offset ".length(), output.indexOf(" ms")));
+        assertTrue(output, Math.abs(offset - 2500) <= 10);
+
+        // only the first line may be skipped
+        Files.write(motionFile.toPath(), "time,motion\n0,1.5\n-,2\n80,1\n".getBytes(StandardCharsets.US_ASCII));
+        assertEquals(VboToolsCli.EXIT_FAILED, cli.run(new String[]{"syncoffset", vboFile, motionFile.getPath()}));
+        assertTrue(err.toString(), err.toString().contains("line 3"));
+        assertEquals(VboToolsCli.EXIT_USAGE,
+                cli.run(new String[]{"syncoffset", vboFile, motionFile.getPath(), "--time-unit", "h"}));
+    }
+}
@@ -0,0 +1,65 @@
+package org.sikrip.vboeditor.engine;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+import static junit.framework.TestCase.assertEquals;
+import static org.sikrip.vboeditor.TestHelper.getTestResourceUrl;
+
+/**
+ * Tests for {@link BatchConverter}.
+ */
+public class BatchConverterTest {
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void verifyCorruptFileDoesNotAbortBatch() throws IOException, InterruptedException {
+        final File inputDir = temporaryFolder.newFolder("input");
+        for (String sample : new String[]{"sample.vbo", "sample-vbo-from-dbn.vbo", "sampleHarrysLapTimer.vbo"}) {
+            Files.copy(new File(getTestResourceUrl("/" + sample).getPath()).toPath(),
+                    new File(inputDir, sample).toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        Files.write(new File(inputDir, "corrupt.vbo").toPath(),
+                "[header]\nsatellites\n[data]\n".getBytes(StandardCharsets.US_ASCII));
+        Files.write(new File(inputDir, "notes.txt").toPath(), "not a vbo".getBytes(StandardCharsets.US_ASCII));
+
+        final List<File> sourceFiles =
+                BatchConverter.findSourceFiles(inputDir.getPath(), BatchConverter.Conversion.VBO_TO_DBN);
+        assertEquals(4, sourceFiles.size());
+        assertEquals(1, BatchConverter.findSourceFiles(inputDir.getPath() + "/sample-*.vbo",
+                BatchConverter.Conversion.VBO_TO_DBN).size());
+
+        final File outputDir = temporaryFolder.newFolder("output");
+        final List<BatchConverter.Result> results = new ArrayList<>();
+        final BatchConverter.Summary summary = new BatchConverter(BatchConverter.Conversion.VBO_TO_DBN, 2)
+                .convert(sourceFiles, outputDir, (result, completed, total) -> {
+                    assertEquals(results.size() + 1, completed);
+                    assertEquals(4, total);
+                    results.add(result);
+                });
+
+        assertEquals(4, results.size());
+        assertEquals(3, summary.getConverted());
+        assertEquals(1, summary.getFailures().size());
+        final BatchConverter.Result failure = summary.getFailures().get(0);
+        assertEquals("corrupt.vbo", failure.getSource().getName());
+        assertFalse(failure.getTarget().exists());
+        assertTrue(new File(outputDir, "sample.vbo.dbn").isFile());
+        assertTrue(new File(outputDir, "sample-vbo-from-dbn.vbo.dbn").isFile());
+        assertTrue(new File(outputDir, "sampleHarrysLapTimer.vbo.dbn").isFile());
+        assertTrue(summary.getSourceBytes() > 0);
+    }
+}
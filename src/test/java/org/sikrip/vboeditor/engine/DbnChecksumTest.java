@@ -0,0 +1,72 @@
+package org.sikrip.vboeditor.engine;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static junit.framework.TestCase.assertEquals;
+
+/**
+ * Tests for {@link DbnChecksum}.
+ */
+public class DbnChecksumTest {
+
+    @Test
+    public void verifyTableChecksumMatchesBitwiseChecksum() {
+        final Random random = new Random(7);
+        final byte[] packet = new byte[28];
+        final DbnChecksum checksum = new DbnChecksum();
+        for (int i = 0; i < 100000; i++) {
+            random.nextBytes(packet);
+            checksum.reset();
+            checksum.update(packet, 0, packet.length);
+            assertEquals(bitwiseChecksum(packet, packet.length), checksum.getValue());
+            assertEquals(bitwiseChecksum(packet, packet.length), DbnToVbo.calculateDbnChecksum(packet, packet.length));
+        }
+    }
+
+    @Test
+    public void verifyStreamingUpdates() {
+        final byte[] data = new byte[64];
+        new Random(11).nextBytes(data);
+        final DbnChecksum bulk = new DbnChecksum();
+        bulk.update(data, 0, data.length);
+
+        final DbnChecksum streaming = new DbnChecksum();
+        for (byte b : data) {
+            streaming.update(b);
+        }
+        assertEquals(bulk.getValue(), streaming.getValue());
+
+        final DbnChecksum buffered = new DbnChecksum();
+        final ByteBuffer buffer = ByteBuffer.allocate(data.length + 3);
+        buffer.position(3);
+        buffer.put(data);
+        buffered.update(buffer, 3, 20);
+        buffered.update(buffer, 23, data.length - 20);
+        assertEquals(bulk.getValue(), buffered.getValue());
+        assertEquals(bulk.getValue(), DbnToVbo.calculateDbnChecksum(buffer, 3, data.length));
+    }
+
+    /**
+     * The original, bit at a time, checksum calculation.
+     */
+    private static int bitwiseChecksum(byte[] data, int length) {
+        int crc = 0;
+        for (int i = 0; i < length; i++) {
+            crc = crc ^ (data[i] * 256);
+            crc = crc % 65536;
+            for (int j = 8; j > 0; j--) {
+                if ((crc & 32768) == 32768) {
+                    crc = crc * 2;
+                    crc = (crc ^ 4132);
+                } else {
+                    crc = crc * 2;
+                }
+                crc = crc % 65536;
+            }
+        }
+        return crc & 0xffff;
+    }
+}
@@ -0,0 +1,85 @@
+package org.sikrip.vboeditor.engine;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+
+import static junit.framework.TestCase.assertEquals;
+import static org.sikrip.vboeditor.TestHelper.getTestResourceUrl;
+import static org.sikrip.vboeditor.engine.VboIOUtils.readVboSections;
+import static org.sikrip.vboeditor.engine.VboUtils.DATA_SECTION;
+
+/**
+ * Tests for {@link DbnToVbo}.
+ */
+public class DbnToVboTest {
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void verifyVboToDbnRoundTrip() throws IOException {
+        final String vboFilePath = getTestResourceUrl("/sample-vbo-from-dbn.vbo").getPath();
+        final String dbnFilePath = new File(temporaryFolder.getRoot(), "sample.dbn").getPath();
+        final String convertedVboFilePath = new File(temporaryFolder.getRoot(), "sample.vbo").getPath();
+
+        VboToDbn.convert(vboFilePath, dbnFilePath);
+        DbnToVbo.convert(dbnFilePath, convertedVboFilePath);
+
+        final List<String> dataLines = readVboSections(vboFilePath).get(DATA_SECTION);
+        final Map<String, List<String>> convertedSections = readVboSections(convertedVboFilePath);
+        final List<String> convertedDataLines = convertedSections.get(DATA_SECTION);
+        assertEquals(11, convertedSections.get("[header]").size());
+        assertEquals(dataLines.size(), convertedDataLines.size());
+
+        final VboLineTokenizer tokenizer = new VboLineTokenizer(" ");
+        final VboLineTokenizer convertedTokenizer = new VboLineTokenizer(" ");
+        for (int i = 0; i < dataLines.size(); i++) {
+            tokenizer.reset(dataLines.get(i));
+            convertedTokenizer.reset(convertedDataLines.get(i));
+            assertEquals(tokenizer.getInt(0), convertedTokenizer.getInt(0));
+            assertEquals(tokenizer.getTimeMillis(1), convertedTokenizer.getTimeMillis(1));
+            for (int column = 2; column < 7; column++) {
+                assertEquals(tokenizer.getDouble(column), convertedTokenizer.getDouble(column), 0.00001);
+            }
+        }
+    }
+
+    @Test
+    public void verifySignedValuesDecoding() throws IOException {
+        final ByteBuffer packet = ByteBuffer.allocate(33);
+        packet.put((byte) 7);
+        // 13:26:48.300 in 10ms units, 3 bytes
+        packet.put((byte) (4840830 >> 16)).putShort((short) 4840830);
+        packet.putInt(227925223).putInt(-140170107);
+        packet.putShort((short) 8516).putShort((short) 24867);
+        packet.putInt(-15);
+        // low bytes with the sign bit set
+        packet.putShort((short) 128).putShort((short) -128).putShort((short) 255).putShort((short) -1);
+        packet.putShort((short) DbnToVbo.calculateDbnChecksum(packet.array(), 28));
+        packet.put((byte) 13).put((byte) 10).put((byte) 36);
+
+        final File dbnFile = temporaryFolder.newFile("signed.dbn");
+        final byte[] preamble = "File created\r\n[HEADER]\r\n[DATA]\r\n$".getBytes(StandardCharsets.US_ASCII);
+        final byte[] dbnBytes = new byte[preamble.length + packet.capacity()];
+        System.arraycopy(preamble, 0, dbnBytes, 0, preamble.length);
+        System.arraycopy(packet.array(), 0, dbnBytes, preamble.length, packet.capacity());
+        Files.write(dbnFile.toPath(), dbnBytes);
+
+        final String vboFilePath = new File(temporaryFolder.getRoot(), "signed.vbo").getPath();
+        DbnToVbo.convert(dbnFile.getPath(), vboFilePath);
+
+        final List<String> dataLines = readVboSections(vboFilePath).get(DATA_SECTION);
+        assertEquals(1, dataLines.size());
+        assertEquals("007 132648.300 02279.25223000 01401.70107000 0085.1600 0248.6700 -0000.1500 0012.8000  -0012.8000 0025.5000 -0000.1000",
+                dataLines.get(0));
+    }
+}
@@ -0,0 +1,83 @@
+package org.sikrip.vboeditor.engine;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import static junit.framework.Assert.assertTrue;
+import static junit.framework.TestCase.assertEquals;
+import static org.sikrip.vboeditor.TestHelper.getTestResourceUrl;
+import static org.sikrip.vboeditor.engine.VboIOUtils.readVboSections;
+import static org.sikrip.vboeditor.engine.VboUtils.DATA_SECTION;
+import static org.sikrip.vboeditor.engine.VboUtils.convertToMillis;
+
+/**
+ * Tests for {@link MappedVboFile}.
+ */
+public class MappedVboFileTest {
+
+    @Test
+    public void verifyRowsMatchSectionReading() throws IOException {
+        for (String sample : new String[]{"/sample.vbo", "/sample-vbo-from-dbn.vbo", "/sampleHarrysLapTimer.vbo"}) {
+            final String vboFilePath = getTestResourceUrl(sample).getPath();
+            final Map<String, List<String>> vboSections = readVboSections(vboFilePath);
+            final List<String> dataLines = vboSections.get(DATA_SECTION);
+
+            try (MappedVboFile vboFile = MappedVboFile.open(vboFilePath)) {
+                assertEquals(vboSections.size() - 1, vboFile.getSections().size());
+                assertEquals(vboSections.get("[header]"), vboFile.getHeader());
+                assertEquals(dataLines.size(), vboFile.getRowCount());
+                for (int row = 0; row < dataLines.size(); row++) {
+                    assertEquals(dataLines.get(row), vboFile.getRow(row));
+                }
+                final int last = dataLines.size() - 1;
+                assertEquals(convertToMillis(dataLines.get(last).split(" ")[1]), vboFile.getTimeMillis(last));
+                assertEquals(Double.valueOf(dataLines.get(last).split(" ")[2]),
+                        vboFile.getDouble(last, vboFile.getColumnIndex("latitude")));
+            }
+        }
+    }
+
+    @Test
+    public void verifyRowsAcrossRegions() throws IOException {
+        for (String sample : new String[]{"/sample.vbo", "/sampleHarrysLapTimer.vbo"}) {
+            final String vboFilePath = getTestResourceUrl(sample).getPath();
+            try (MappedVboFile vboFile = MappedVboFile.open(vboFilePath);
+                 MappedVboFile regionsFile = MappedVboFile.open(vboFilePath, 4096, 256)) {
+                assertEquals(vboFile.getSections(), regionsFile.getSections());
+                assertEquals(vboFile.getPreamble(), regionsFile.getPreamble());
+                assertEquals(vboFile.getRowCount(), regionsFile.getRowCount());
+                final int latitudeIdx = vboFile.getColumnIndex("latitude");
+                for (int row = 0; row < vboFile.getRowCount(); row++) {
+                    assertEquals(vboFile.getRow(row), regionsFile.getRow(row));
+                    assertEquals(vboFile.getTimeMillis(row), regionsFile.getTimeMillis(row));
+                    assertEquals(vboFile.getDouble(row, latitudeIdx), regionsFile.getDouble(row, latitudeIdx));
+                }
+            }
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void verifyLinesLongerThanRegionOverlap() throws IOException {
+        MappedVboFile.open(getTestResourceUrl("/sample.vbo").getPath(), 4096, 16).close();
+    }
+
+    @Test
+    public void verifySectionsAroundData() throws IOException {
+        try (MappedVboFile vboFile = MappedVboFile.open(getTestResourceUrl("/sample.vbo").getPath())) {
+            assertEquals(1, vboFile.getPreamble().size());
+            assertTrue(vboFile.getPreamble().get(0).startsWith("File created on"));
+            assertEquals(" ", vboFile.getDataSeparator());
+            assertEquals(2, vboFile.getSections().get("[section]").size());
+        }
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void verifyRowOutOfRange() throws IOException {
+        try (MappedVboFile vboFile = MappedVboFile.open(getTestResourceUrl("/sample.vbo").getPath())) {
+            vboFile.getRow(vboFile.getRowCount());
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package org.sikrip.vboeditor.engine;
+
+import org.junit.Test;
+import org.sikrip.vboeditor.model.TelemetrySession;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static junit.framework.Assert.assertTrue;
+import static junit.framework.Assert.fail;
+import static junit.framework.TestCase.assertEquals;
+import static org.sikrip.vboeditor.TestHelper.getTestResourceUrl;
+
+/**
+ * Tests for {@link ParallelTelemetryLoader}.
+ */
+public class ParallelTelemetryLoaderTest {
+
+    @Test
+    public void verifyParallelLoadMatchesSequentialParsing() throws IOException {
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (String sample : new String[]{"/sample.vbo", "/sample-vbo-from-dbn.vbo", "/sampleHarrysLapTimer.vbo"}) {
+                try (MappedVboFile vboFile = MappedVboFile.open(getTestResourceUrl(sample).getPath())) {
+                    final TelemetryRowParser rowParser = new TelemetryRowParser(vboFile.getHeader());
+
+                    final TelemetryColumns columns = rowParser.newColumns();
+                    final MappedVboFile.RowReader rowReader = vboFile.newRowReader();
+                    for (int row = 0; row < vboFile.getRowCount(); row++) {
+                        rowParser.parse(rowReader.read(row), columns);
+                    }
+                    final TelemetrySession expected = columns.toSession(100);
+
+                    for (int chunkRows : new int[]{1, 7, 1000, vboFile.getRowCount()}) {
+                        assertSameSession(expected,
+                                ParallelTelemetryLoader.load(vboFile, rowParser, pool, chunkRows).toSession(100));
+                    }
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void verifyStreamedLoad() throws IOException {
+        try (MappedVboFile vboFile = MappedVboFile.open(getTestResourceUrl("/sample.vbo").getPath())) {
+            final TelemetryRowParser rowParser = new TelemetryRowParser(vboFile.getHeader());
+            final List<TelemetrySession> partialSessions = new ArrayList<>();
+            final List<Integer> loadedRows = new ArrayList<>();
+
+            final TelemetryColumns columns = ParallelTelemetryLoader.load(vboFile, rowParser,
+                    (loadedColumns, rows, rowCount) -> {
+                        assertEquals(vboFile.getRowCount(), rowCount);
+                        partialSessions.add(loadedColumns.toPartialSession());
+                        loadedRows.add(rows);
+                    });
+
+            assertSameSession(ParallelTelemetryLoader.load(vboFile, rowParser).toSession(100),
+                    columns.toSession(100));
+            assertEquals(vboFile.getRowCount(), (int) loadedRows.get(loadedRows.size() - 1));
+            final TelemetrySession lastPartialSession = partialSessions.get(partialSessions.size() - 1);
+            assertEquals(columns.getSize(), lastPartialSession.getSize());
+            assertEquals(columns.getTime(0), lastPartialSession.getTime(0));
+        }
+    }
+
+    @Test
+    public void verifyStreamedLoadStopsWhenInterrupted() throws IOException {
+        try (MappedVboFile vboFile = MappedVboFile.open(getTestResourceUrl("/sample.vbo").getPath())) {
+            final TelemetryRowParser rowParser = new TelemetryRowParser(vboFile.getHeader());
+            Thread.currentThread().interrupt();
+            try {
+                ParallelTelemetryLoader.load(vboFile, rowParser, (loadedColumns, rows, rowCount) -> {
+                    fail("No rows should be loaded");
+                });
+                fail("Expected an InterruptedIOException");
+            } catch (InterruptedIOException e) {
+                // expected
+            } finally {
+                Thread.interrupted();
+            }
+        }
+    }
+
+    private static void assertSameSession(TelemetrySession expected, TelemetrySession actual) {
+        assertEquals(expected.getSize(), actual.getSize());
+        assertEquals(expected.getChannelNames(), actual.getChannelNames());
+        for (int i = 0; i < expected.getSize(); i++) {
+            assertEquals(expected.getTime(i), actual.getTime(i));
+            assertEquals(expected.getLatitude(i), actual.getLatitude(i));
+            assertEquals(expected.getLongitude(i), actual.getLongitude(i));
+            assertEquals(expected.getSpeed(i), actual.getSpeed(i));
+        }
+        for (String channelName : expected.getChannelNames()) {
+            assertTrue(channelName, Arrays.equals(expected.getChannel(channelName), actual.getChannel(channelName)));
+        }
+    }
+}
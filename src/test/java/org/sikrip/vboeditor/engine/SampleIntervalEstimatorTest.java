@@ -0,0 +1,76 @@
+package org.sikrip.vboeditor.engine;
+
+import org.junit.Test;
+
+import static junit.framework.TestCase.assertEquals;
+
+/**
+ * Tests for {@link SampleIntervalEstimator}.
+ */
+public class SampleIntervalEstimatorTest {
+
+    @Test
+    public void verifyArbitraryRates() {
+        for (int rateHz : new int[]{1, 5, 10, 20, 25, 50, 100}) {
+            final SampleIntervalEstimator estimator = new SampleIntervalEstimator();
+            for (int i = 0; i < 1000; i++) {
+                estimator.add(36000000L + i * 1000L / rateHz);
+            }
+            assertEquals(1000 / rateHz, estimator.getInterval());
+            assertEquals(0, estimator.getDropoutCount());
+            assertEquals(0, estimator.getRateChangeCount());
+        }
+    }
+
+    @Test
+    public void verifyRateNotMatchingTimeResolution() {
+        // 30 Hz logged with 10 ms times
+        final SampleIntervalEstimator estimator = new SampleIntervalEstimator();
+        for (int i = 0; i < 3000; i++) {
+            estimator.add((i * 1000L / 30) / 10 * 10);
+        }
+        assertEquals(33, estimator.getInterval());
+        assertEquals(0, estimator.getDropoutCount());
+    }
+
+    @Test
+    public void verifyDropoutsAndMidnight() {
+        final SampleIntervalEstimator estimator = new SampleIntervalEstimator();
+        long time = 24 * 3600 * 1000L - 5000;
+        for (int i = 0; i < 500; i++) {
+            // a few samples lost every 100
+            time += i % 100 == 99 ? 200 : 40;
+            estimator.add(time % (24 * 3600 * 1000L));
+        }
+        assertEquals(40, estimator.getInterval());
+        assertEquals(5, estimator.getDropoutCount());
+        assertEquals(0, estimator.getRateChangeCount());
+    }
+
+    @Test
+    public void verifyDropoutsOfSlowRates() {
+        for (int interval : new int[]{1000, 2000, 5000}) {
+            final SampleIntervalEstimator estimator = new SampleIntervalEstimator();
+            long time = 36000000L;
+            for (int i = 0; i < 500; i++) {
+                // jitter above the histogram for the slower rates, a lost sample every 100
+                time += i % 100 == 99 ? 2 * interval : interval + (i % 2 == 0 ? 10 : -10);
+                estimator.add(time);
+            }
+            assertEquals(interval, estimator.getInterval());
+            assertEquals(5, estimator.getDropoutCount());
+        }
+    }
+
+    @Test
+    public void verifyRateChanges() {
+        final SampleIntervalEstimator estimator = new SampleIntervalEstimator();
+        long time = 0;
+        for (int i = 0; i < 1000; i++) {
+            time += i < 700 ? 100 : 50;
+            estimator.add(time);
+        }
+        assertEquals(100, estimator.getInterval());
+        assertEquals(1, estimator.getRateChangeCount());
+    }
+}
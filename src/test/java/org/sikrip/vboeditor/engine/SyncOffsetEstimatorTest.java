@@ -0,0 +1,105 @@
+package org.sikrip.vboeditor.engine;
+
+import org.junit.Test;
+import org.sikrip.vboeditor.model.TelemetrySession;
+
+import java.util.Collections;
+import java.util.Random;
+
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * Tests for {@link SyncOffsetEstimator}.
+ */
+public class SyncOffsetEstimatorTest {
+
+    // 29.97 fps
+    private static final double FRAME_INTERVAL_MILLIS = 1001.0 / 30;
+
+    private final Random random = new Random(42);
+
+    @Test
+    public void verifyOffsetFromSpeed() {
+        final TelemetrySession session = createSession(10 * 60 * 10, 100);
+        final SyncOffsetEstimator estimator = new SyncOffsetEstimator(SyncOffsetEstimator.TelemetryProfile.SPEED,
+                60000);
+        for (long offset : new long[]{12345, -4321, 0}) {
+            final SyncOffsetEstimator.Estimate estimate = estimateWithVideoOf(session, offset, false, estimator);
+            assertTrue(estimate.toString(), Math.abs(estimate.getOffsetMillis() - offset) <= 5);
+            assertTrue(estimate.toString(), estimate.getCorrelation() > 0.5);
+        }
+    }
+
+    @Test
+    public void verifyOffsetFromAcceleration() {
+        final TelemetrySession session = createSession(5 * 60 * 20, 50);
+        final SyncOffsetEstimator estimator = new SyncOffsetEstimator(
+                SyncOffsetEstimator.TelemetryProfile.ACCELERATION, 30000);
+        final SyncOffsetEstimator.Estimate estimate = estimateWithVideoOf(session, 7777, true, estimator);
+        assertTrue(estimate.toString(), Math.abs(estimate.getOffsetMillis() - 7777) <= 5);
+    }
+
+    @Test
+    public void verifyCorrelationOfShortClip() {
+        // a minute of video from the middle of a 10 minute session
+        final TelemetrySession session = createSession(10 * 60 * 10, 100);
+        final long offset = -5 * 60 * 1000;
+        final int frames = (int) (60000 / FRAME_INTERVAL_MILLIS);
+        final double[] times = new double[frames];
+        final double[] motion = new double[frames];
+        for (int i = 0; i < frames; i++) {
+            times[i] = i * FRAME_INTERVAL_MILLIS;
+            motion[i] = session.getSpeedAt(Math.round(times[i]) - offset);
+        }
+        final SyncOffsetEstimator.Estimate estimate = new SyncOffsetEstimator(
+                SyncOffsetEstimator.TelemetryProfile.SPEED, 10 * 60 * 1000).estimate(session, times, motion);
+        assertTrue(estimate.toString(), Math.abs(estimate.getOffsetMillis() - offset) <= 5);
+        assertTrue(estimate.toString(), estimate.getCorrelation() > 0.99);
+    }
+
+    /**
+     * Creates a video motion signal that follows the speed of the session (or its change, for acceleration) and
+     * starts the given offset before it.
+     */
+    private SyncOffsetEstimator.Estimate estimateWithVideoOf(TelemetrySession session, long offset,
+                                                            boolean fromAcceleration,
+                                                            SyncOffsetEstimator estimator) {
+        final long duration = session.getElapsedTime(session.getSize() - 1) + Math.abs(offset);
+        final int frames = (int) (duration / FRAME_INTERVAL_MILLIS);
+        final double[] times = new double[frames];
+        final double[] motion = new double[frames];
+        for (int i = 0; i < frames; i++) {
+            times[i] = i * FRAME_INTERVAL_MILLIS;
+            final long telemetryTime = Math.round(times[i]) - offset;
+            if (fromAcceleration) {
+                // the speed change over a frame, centered on the frame
+                final long halfFrame = Math.round(FRAME_INTERVAL_MILLIS / 2);
+                motion[i] = session.getSpeedAt(telemetryTime + halfFrame)
+                        - session.getSpeedAt(telemetryTime - halfFrame) + random.nextGaussian() * 0.1;
+            } else {
+                motion[i] = 0.01 * Math.pow(session.getSpeedAt(telemetryTime), 1.2) + random.nextGaussian() * 0.1;
+            }
+        }
+        return estimator.estimate(session, times, motion);
+    }
+
+    /**
+     * A session with a speed that changes smoothly, like a car on a track.
+     */
+    private TelemetrySession createSession(int size, long interval) {
+        final long[] time = new long[size];
+        final double[] speed = new double[size];
+        double target = 100;
+        double current = 100;
+        for (int i = 0; i < size; i++) {
+            if (i % (2000 / interval) == 0) {
+                target = 40 + random.nextDouble() * 160;
+            }
+            current += (target - current) * interval / 1000.0;
+            time[i] = 36000000L + i * interval;
+            speed[i] = current;
+        }
+        return new TelemetrySession(size, interval, time, new double[size], new double[size], speed,
+                Collections.<String, double[]>emptyMap());
+    }
+}
@@ -0,0 +1,90 @@
+package org.sikrip.vboeditor.engine;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sikrip.vboeditor.model.TelemetrySession;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNotNull;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertTrue;
+import static junit.framework.TestCase.assertEquals;
+import static org.sikrip.vboeditor.TestHelper.getTestResourceUrl;
+
+/**
+ * Tests for {@link TelemetrySessionCache}.
+ */
+public class TelemetrySessionCacheTest {
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void verifyCachedSessionMatchesParsedSession() throws IOException {
+        final String vboFilePath = copySample("sample.vbo", "sample.vbo").getPath();
+        final TelemetrySession session = VboEditor.getTelemetrySession(vboFilePath);
+        final TelemetrySessionCache cache = new TelemetrySessionCache(temporaryFolder.newFolder("cache"), Long.MAX_VALUE);
+
+        assertNull(cache.get(vboFilePath));
+        cache.put(vboFilePath, session);
+        final TelemetrySession cachedSession = cache.get(vboFilePath);
+
+        assertNotNull(cachedSession);
+        assertEquals(session.getSize(), cachedSession.getSize());
+        assertEquals(session.getGpsDataInterval(), cachedSession.getGpsDataInterval());
+        assertEquals(session.getChannelNames(), cachedSession.getChannelNames());
+        for (int i = 0; i < session.getSize(); i++) {
+            assertEquals(session.getTime(i), cachedSession.getTime(i));
+            assertEquals(session.getLatitude(i), cachedSession.getLatitude(i));
+            assertEquals(session.getLongitude(i), cachedSession.getLongitude(i));
+            assertEquals(session.getSpeed(i), cachedSession.getSpeed(i));
+        }
+        for (String channelName : session.getChannelNames()) {
+            assertTrue(Arrays.equals(Arrays.copyOf(session.getChannel(channelName), session.getSize()),
+                    cachedSession.getChannel(channelName)));
+        }
+    }
+
+    @Test
+    public void verifyModifiedFileInvalidatesEntry() throws IOException {
+        final File vboFile = copySample("sample.vbo", "sample.vbo");
+        final TelemetrySessionCache cache = new TelemetrySessionCache(temporaryFolder.newFolder("cache"), Long.MAX_VALUE);
+        cache.put(vboFile.getPath(), VboEditor.getTelemetrySession(vboFile.getPath()));
+
+        assertTrue(vboFile.setLastModified(vboFile.lastModified() - 60000));
+        assertNull(cache.get(vboFile.getPath()));
+    }
+
+    @Test
+    public void verifyLeastRecentlyUsedEntriesAreEvicted() throws IOException {
+        final File firstVboFile = copySample("sample.vbo", "first.vbo");
+        final File secondVboFile = copySample("sample.vbo", "second.vbo");
+        final TelemetrySession firstSession = VboEditor.getTelemetrySession(firstVboFile.getPath());
+        final TelemetrySession secondSession = VboEditor.getTelemetrySession(secondVboFile.getPath());
+
+        final File cacheDir = temporaryFolder.newFolder("cache");
+        new TelemetrySessionCache(cacheDir, Long.MAX_VALUE).put(firstVboFile.getPath(), firstSession);
+        final File firstCacheFile = cacheDir.listFiles()[0];
+        assertTrue(firstCacheFile.setLastModified(firstCacheFile.lastModified() - 60000));
+
+        // room for one entry only
+        final TelemetrySessionCache cache = new TelemetrySessionCache(cacheDir, firstCacheFile.length() * 3 / 2);
+        cache.put(secondVboFile.getPath(), secondSession);
+
+        assertFalse(firstCacheFile.exists());
+        assertNull(cache.get(firstVboFile.getPath()));
+        assertNotNull(cache.get(secondVboFile.getPath()));
+    }
+
+    private File copySample(String sampleName, String fileName) throws IOException {
+        final File vboFile = new File(temporaryFolder.getRoot(), fileName);
+        FileUtils.copyFile(new File(getTestResourceUrl("/" + sampleName).getPath()), vboFile);
+        return vboFile;
+    }
+}
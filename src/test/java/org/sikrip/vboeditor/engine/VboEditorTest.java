@@ -1,18 +1,28 @@
 package org.sikrip.vboeditor.engine;
 
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.sikrip.vboeditor.engine.VboEditor;
+import org.sikrip.vboeditor.model.TelemetrySession;
 import org.sikrip.vboeditor.model.TraveledRouteCoordinate;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.text.ParseException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
+import static junit.framework.Assert.assertFalse;
 import static junit.framework.Assert.assertTrue;
 import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.fail;
 import static org.sikrip.vboeditor.TestHelper.getTestResourceUrl;
+import static org.sikrip.vboeditor.engine.VboEditor.getTelemetrySession;
 import static org.sikrip.vboeditor.engine.VboEditor.getTraveledRoute;
 import static org.sikrip.vboeditor.engine.VboIOUtils.readVboSections;
 
@@ -21,6 +31,9 @@ import static org.sikrip.vboeditor.engine.VboIOUtils.readVboSections;
  */
 public class VboEditorTest {
 
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     @Test
     public void verifyTraveledRouteExtraction() throws IOException, ParseException {
         List<TraveledRouteCoordinate> route = getTraveledRoute(getTestResourceUrl("/sample-vbo-for-route-test.vbo").getPath());
@@ -33,6 +46,24 @@ public class VboEditorTest {
         assertEquals(85.160, route.get(0).getSpeed());
     }
 
+    @Test
+    public void verifyTelemetrySessionExtraction() throws IOException {
+        TelemetrySession session = getTelemetrySession(getTestResourceUrl("/sample-vbo-for-route-test.vbo").getPath());
+
+        assertEquals(21, session.getSize());
+        assertEquals(100, session.getGpsDataInterval());
+        assertEquals(48408300, session.getTime(0));
+        assertEquals(02279.25223, session.getLatitude(0));
+        assertEquals(-01401.70107, session.getLongitude(0));
+        assertEquals(85.160, session.getSpeed(0));
+
+        assertTrue(session.getChannelNames().contains("heading"));
+        assertTrue(session.getChannelNames().contains("satellites"));
+        assertFalse(session.getChannelNames().contains("time"));
+        assertEquals(248.67, session.getChannel("heading")[0]);
+        assertEquals(-6.3, session.getChannel("yaw rate deg/s")[0]);
+    }
+
     @Test
     public void verifyVideoFileCreation() throws IOException {
         final String basePath = getTestResourceUrl("/").getPath();
@@ -46,6 +77,77 @@ public class VboEditorTest {
         assertEquals(sourceVideo.length(), finalVideo.length());
     }
 
+    @Test
+    public void verifyVideoFilePlacements() throws IOException {
+        final File basePath = temporaryFolder.getRoot();
+        final File sourceVideo = new File(basePath, "video.avi");
+        Files.copy(Paths.get(getTestResourceUrl("/sample.avi").getPath()), sourceVideo.toPath());
+        final long videoSize = sourceVideo.length();
+
+        final List<Long> progress = new ArrayList<>();
+        VboEditor.createVideoFile(basePath.getPath(), sourceVideo.getPath(), "copy", VboEditor.VideoPlacement.COPY,
+                (done, total) -> {
+                    assertEquals(videoSize, total);
+                    progress.add(done);
+                });
+        assertEquals(videoSize, new File(basePath, "copy/copy0001.avi").length());
+        assertEquals(Long.valueOf(videoSize), progress.get(progress.size() - 1));
+
+        VboEditor.createVideoFile(basePath.getPath(), sourceVideo.getPath(), "link",
+                VboEditor.VideoPlacement.HARD_LINK, null);
+        final Path linkedVideo = Paths.get(basePath.getPath(), "link/link0001.avi");
+        assertTrue(Files.isSameFile(sourceVideo.toPath(), linkedVideo));
+        // placing it again is a no-op
+        VboEditor.createVideoFile(basePath.getPath(), sourceVideo.getPath(), "link",
+                VboEditor.VideoPlacement.HARD_LINK, null);
+        assertTrue(Files.isSameFile(sourceVideo.toPath(), linkedVideo));
+
+        VboEditor.createVideoFile(basePath.getPath(), sourceVideo.getPath(), "move", VboEditor.VideoPlacement.MOVE,
+                null);
+        assertFalse(sourceVideo.exists());
+        assertEquals(videoSize, new File(basePath, "move/move0001.avi").length());
+    }
+
+    @Test
+    public void verifySessionFilesCreation() throws IOException, InterruptedException {
+        final String basePath = temporaryFolder.getRoot().getPath();
+        final String vboPath = getTestResourceUrl("/sample.vbo").getPath();
+        final String videoPath = getTestResourceUrl("/sample.avi").getPath();
+        final long totalBytes = new File(vboPath).length() + new File(videoPath).length();
+
+        final List<Long> progress = new ArrayList<>();
+        VboEditor.createSessionFiles(basePath, vboPath, videoPath, VboEditor.VideoType.AVI, "session", 0,
+                VboEditor.VideoPlacement.COPY, (done, total) -> {
+                    assertEquals(totalBytes, total);
+                    synchronized (progress) {
+                        progress.add(done);
+                    }
+                });
+        assertTrue(new File(basePath, "session/sessionData.vbo").isFile());
+        assertTrue(new File(basePath, "session/session0001.avi").isFile());
+        assertTrue(progress.contains(totalBytes));
+    }
+
+    @Test
+    public void verifySessionFilesAreRemovedOnFailure() throws IOException, InterruptedException {
+        final File basePath = temporaryFolder.getRoot();
+        final File corruptVbo = temporaryFolder.newFile("corrupt.vbo");
+        final File sourceVideo = new File(basePath, "video.avi");
+        Files.copy(Paths.get(getTestResourceUrl("/sample.avi").getPath()), sourceVideo.toPath());
+
+        try {
+            VboEditor.createSessionFiles(basePath.getPath(), corruptVbo.getPath(), sourceVideo.getPath(),
+                    VboEditor.VideoType.AVI, "session", 0, VboEditor.VideoPlacement.MOVE, null);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        assertFalse(new File(basePath, "session/sessionData.vbo").exists());
+        assertFalse(new File(basePath, "session/session0001.avi").exists());
+        // a moved video is moved back
+        assertTrue(sourceVideo.isFile());
+    }
+
     @Test
     public void verifyHarrysLapTimerVbo_ShouldHaveCustomSections() throws IOException {
         final String basePath = getTestResourceUrl("/").getPath();
@@ -168,4 +270,30 @@ public class VboEditorTest {
         assertTrue(data.get(1).contains("0001"));
         assertTrue(data.get(1).contains("00002100"));
     }
+
+    @Test
+    public void verifyVideoMetadataIntegration_WhenVboAlreadyContainsVideoMetadata() throws IOException {
+
+        final String basePath = getTestResourceUrl("/").getPath();
+
+        VboEditor.createVboWithVideoMetadata(basePath, basePath + "/sample-vbo-from-dbn.vbo", VboEditor.VideoType.MP4, "my-session", 2000);
+        VboEditor.createVboWithVideoMetadata(basePath, basePath + "/my-session/my-sessionData.vbo", VboEditor.VideoType.AVI, "my-other-session", -20);
+
+        Map<String, List<String>> originalSections = readVboSections(basePath + "/sample-vbo-from-dbn.vbo");
+        Map<String, List<String>> vboWithVideoSections = readVboSections(basePath + "/my-other-session/my-other-sessionData.vbo");
+
+        List<String> headers = vboWithVideoSections.get("[header]");
+        assertEquals(originalSections.get("[header]").size() + 2, headers.size());
+        assertEquals(headers.indexOf("avifileindex"), headers.lastIndexOf("avifileindex"));
+
+        List<String> videoMetadata = vboWithVideoSections.get("[avi]");
+        assertTrue(videoMetadata.contains("my-other-session"));
+        assertTrue(videoMetadata.contains("AVI"));
+
+        List<String> originalData = originalSections.get("[data]");
+        List<String> data = vboWithVideoSections.get("[data]");
+        assertEquals(originalData.size(), data.size());
+        assertEquals(originalData.get(0).trim() + " 0001 00000020", data.get(0));
+        assertEquals(originalData.get(1).trim() + " 0001 00000120", data.get(1));
+    }
 }
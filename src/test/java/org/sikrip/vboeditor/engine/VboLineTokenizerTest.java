@@ -0,0 +1,135 @@
+package org.sikrip.vboeditor.engine;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.fail;
+import static org.sikrip.vboeditor.TestHelper.getTestResourceUrl;
+import static org.sikrip.vboeditor.engine.VboIOUtils.readVboSections;
+import static org.sikrip.vboeditor.engine.VboUtils.DATA_SECTION;
+
+/**
+ * Tests for {@link VboLineTokenizer}.
+ */
+public class VboLineTokenizerTest {
+
+    @Test
+    public void verifyFieldsMatchStringSplit() {
+        final String[] lines = {
+                "004 132648.30 +02279.25223 -01401.70107 085.160 248.67 +00027.67 -006.3 +0.00000E+00 ",
+                "009 073622.00  +02279.16590 -01401.66780",
+                " leading",
+                "single",
+                "trailing  ",
+                "",
+        };
+        final VboLineTokenizer tokenizer = new VboLineTokenizer(" ");
+        for (String line : lines) {
+            final String[] expected = line.split(" ");
+            tokenizer.reset(line);
+            assertEquals(line, expected.length, tokenizer.getFieldCount());
+            for (int i = 0; i < expected.length; i++) {
+                assertEquals(expected[i], tokenizer.getString(i));
+            }
+        }
+    }
+
+    @Test
+    public void verifyNumbersParsing() {
+        final String[] values = {
+                "+02279.25223", "-01401.70107", "085.160", "+00027.67", "-006.3", "+0.00000E+00", "-3.90000E+00",
+                "1.5e-3", "0", "-0", "-0.0", "+2279.22023257", "12345678901234567890", "0.1", "5.", ".5"
+        };
+        for (String value : values) {
+            assertEquals(value, Double.parseDouble(value), VboLineTokenizer.parseDouble(value, 0, value.length()));
+        }
+        assertEquals(2.5, VboLineTokenizer.parseDouble("2,5", 0, 3));
+
+        final Random random = new Random(1);
+        for (int i = 0; i < 100000; i++) {
+            final String value = String.format(Locale.US, "%+0" + (6 + random.nextInt(6)) + "." + random.nextInt(9) + "f",
+                    (random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(6)));
+            assertEquals(value, Double.parseDouble(value), VboLineTokenizer.parseDouble(value, 0, value.length()));
+        }
+
+        assertEquals(9, VboLineTokenizer.parseInt("009", 0, 3));
+        assertEquals(-12, VboLineTokenizer.parseInt("-12", 0, 3));
+        assertEquals(Integer.MAX_VALUE, VboLineTokenizer.parseInt("2147483647", 0, 10));
+    }
+
+    @Test
+    public void verifyInvalidNumbersAreRejected() {
+        for (String value : new String[]{"", "-", "abc", "1.2.3", "E5"}) {
+            try {
+                VboLineTokenizer.parseDouble(value, 0, value.length());
+                fail("Parsed " + value);
+            } catch (NumberFormatException e) {
+                // expected
+            }
+        }
+        for (String value : new String[]{"", "1.5", "2147483648"}) {
+            try {
+                VboLineTokenizer.parseInt(value, 0, value.length());
+                fail("Parsed " + value);
+            } catch (NumberFormatException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void verifyTimeParsing() {
+        assertEquals(48408300, VboLineTokenizer.parseVboTime("132648.30", 0, 9));
+        assertEquals(48408305, VboLineTokenizer.parseVboTime("132648.305", 0, 10));
+        assertEquals(48408300, VboLineTokenizer.parseVboTime("x132648.30x", 1, 10));
+        for (String value : new String[]{"13264.30", "132648.3x", "1326a8.30"}) {
+            try {
+                VboLineTokenizer.parseVboTime(value, 0, value.length());
+                fail("Parsed " + value);
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void verifySampleFilesParseAsDoubleValueOf() throws IOException {
+        for (String sample : new String[]{"/sample.vbo", "/sample-vbo-from-dbn.vbo", "/sampleHarrysLapTimer.vbo"}) {
+            final List<String> dataLines = readVboSections(getTestResourceUrl(sample).getPath()).get(DATA_SECTION);
+            final VboLineTokenizer tokenizer = new VboLineTokenizer(" ");
+            for (String dataLine : dataLines) {
+                final String[] expected = dataLine.split(" ");
+                tokenizer.reset(dataLine);
+                assertEquals(expected.length, tokenizer.getFieldCount());
+                for (int i = 0; i < expected.length; i++) {
+                    if (!expected[i].isEmpty()) {
+                        assertEquals(Double.valueOf(expected[i]), tokenizer.getDouble(i));
+                    }
+                }
+                assertEquals(VboUtils.convertToMillis(expected[1]), tokenizer.getTimeMillis(1));
+            }
+        }
+    }
+
+    @Test
+    public void verifyScaledIntsMatchBigDecimal() {
+        final String[] values = {"+02279.25223", "-01401.70107", "085.160", "-0.009", "0", "-0", "1,5",
+                "21474836.48", "123456789012.3456789", "-3.90000E+00", "0.00000000000000001"};
+        final Random random = new Random(5);
+        for (int i = 0; i < values.length + 100000; i++) {
+            final String value = i < values.length ? values[i]
+                    : String.format(Locale.US, "%+.6f", (random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(10)));
+            for (int scale = 0; scale <= 5; scale++) {
+                final int expected = BigDecimal.valueOf(Double.parseDouble(value.replace(',', '.')))
+                        .multiply(BigDecimal.valueOf(Math.pow(10, scale))).intValue();
+                assertEquals(value, expected, VboLineTokenizer.parseScaledInt(value, 0, value.length(), scale));
+            }
+        }
+    }
+}
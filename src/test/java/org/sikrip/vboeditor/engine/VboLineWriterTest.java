@@ -0,0 +1,64 @@
+package org.sikrip.vboeditor.engine;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.text.DecimalFormat;
+import java.util.Locale;
+import java.util.Random;
+
+import static junit.framework.TestCase.assertEquals;
+
+/**
+ * Tests for {@link VboLineWriter}.
+ */
+public class VboLineWriterTest {
+
+    @Test
+    public void verifyDecimalFormatEquivalence() throws IOException {
+        final DecimalFormat satsFormat = decimalFormat("000");
+        final DecimalFormat coordinatesFormat = decimalFormat("00000.00000000");
+        final DecimalFormat commonDecimalFormat = decimalFormat("0000.0000");
+
+        final StringBuilder expected = new StringBuilder();
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        // a small buffer to exercise the flushing
+        try (VboLineWriter writer = new VboLineWriter(Channels.newChannel(output), 64)) {
+            final Random random = new Random(3);
+            final int[] edgeValues = {0, 1, -1, 9, -9, 10, 99999, -99999, 100000, Integer.MAX_VALUE, Integer.MIN_VALUE};
+            for (int i = 0; i < 100000; i++) {
+                final int value = i < edgeValues.length ? edgeValues[i] : random.nextInt() >> random.nextInt(32);
+                expected.append(satsFormat.format((byte) value))
+                        .append(coordinatesFormat.format(value / 100000.0))
+                        .append(coordinatesFormat.format(-(value / 100000.0)))
+                        .append(commonDecimalFormat.format(value / 100.0))
+                        .append(commonDecimalFormat.format((short) value / 10.0))
+                        .append('\n');
+                writer.writeInt((byte) value, 3)
+                        .writeFixedPoint(value, 5, 5, 8)
+                        .writeFixedPoint(value >= 0, Math.abs((long) value), 5, 5, 8)
+                        .writeFixedPoint(value, 2, 4, 4)
+                        .writeFixedPoint((short) value, 1, 4, 4)
+                        .write('\n');
+            }
+        }
+        assertEquals(expected.toString(), output.toString("US-ASCII"));
+    }
+
+    @Test
+    public void verifyVboTime() throws IOException {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (VboLineWriter writer = new VboLineWriter(Channels.newChannel(output))) {
+            writer.writeVboTime(0).write(' ').writeVboTime(48408300).write(' ').writeVboTime(167772150);
+        }
+        assertEquals("000000.000 132648.300 463612.150", output.toString("US-ASCII"));
+    }
+
+    private static DecimalFormat decimalFormat(String pattern) {
+        final DecimalFormat decimalFormat = (DecimalFormat) DecimalFormat.getInstance(Locale.US);
+        decimalFormat.applyPattern(pattern);
+        return decimalFormat;
+    }
+}
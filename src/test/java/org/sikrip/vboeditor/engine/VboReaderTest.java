@@ -0,0 +1,59 @@
+package org.sikrip.vboeditor.engine;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.List;
+
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertTrue;
+import static junit.framework.TestCase.assertEquals;
+import static org.sikrip.vboeditor.TestHelper.getTestResourceUrl;
+
+/**
+ * Tests for {@link VboReader}.
+ */
+public class VboReaderTest {
+
+    @Test
+    public void verifySectionsAndDataLinesReading() throws IOException {
+        try (VboReader vboReader = new VboReader(getTestResourceUrl("/sample.vbo").getPath())) {
+            assertEquals(1, vboReader.getPreamble().size());
+            assertTrue(vboReader.getPreamble().get(0).startsWith("File created on"));
+
+            assertEquals(5, vboReader.getSections().size());
+            assertEquals(7, vboReader.getSection("[header]").size());
+            assertEquals(7, vboReader.getSection("[HEADER]").size());
+            assertEquals(1, vboReader.getSection("[column names]").size());
+            assertNull(vboReader.getSection("[data]"));
+
+            int dataLines = 0;
+            while (vboReader.readDataLine() != null) {
+                dataLines++;
+            }
+            assertEquals(4420, dataLines);
+            assertNull(vboReader.readDataLine());
+        }
+    }
+
+    @Test
+    public void verifyPeekedDataLinesAreNotConsumed() throws IOException {
+        try (VboReader vboReader = new VboReader(getTestResourceUrl("/sample.vbo").getPath())) {
+            final List<String> peekedLines = vboReader.peekDataLines(3);
+            assertEquals(3, peekedLines.size());
+            assertEquals(2, vboReader.peekDataLines(2).size());
+
+            assertEquals(peekedLines.get(0), vboReader.readDataLine());
+            assertEquals(peekedLines.get(1), vboReader.readDataLine());
+            assertEquals(peekedLines.get(2), vboReader.readDataLine());
+            assertEquals("009 073624.20 +02279.16590 -01401.66780 000.00 152.37 +0003.21", vboReader.readDataLine());
+        }
+    }
+
+    @Test
+    public void verifyEmptyDataLinesAreSkipped() throws IOException {
+        try (VboReader vboReader = new VboReader(getTestResourceUrl("/sampleHarrysLapTimer.vbo").getPath())) {
+            assertTrue(vboReader.readDataLine().startsWith("017 074707.38"));
+        }
+    }
+}
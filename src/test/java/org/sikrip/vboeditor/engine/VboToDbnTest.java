@@ -0,0 +1,58 @@
+package org.sikrip.vboeditor.engine;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.fail;
+import static org.sikrip.vboeditor.TestHelper.getTestResourceUrl;
+import static org.sikrip.vboeditor.engine.VboIOUtils.readVboSections;
+import static org.sikrip.vboeditor.engine.VboUtils.DATA_SECTION;
+
+/**
+ * Tests for {@link VboToDbn}.
+ */
+public class VboToDbnTest {
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void verifyEmptyDataLinesAreSkipped() throws IOException {
+        final String vboFilePath = getTestResourceUrl("/sampleHarrysLapTimer.vbo").getPath();
+        final File dbnFile = new File(temporaryFolder.getRoot(), "harrys.dbn");
+        VboToDbn.convert(vboFilePath, dbnFile.getPath());
+
+        final String header = new String(Files.readAllBytes(dbnFile.toPath()), StandardCharsets.ISO_8859_1);
+        assertTrue(header.startsWith("File created"));
+
+        final File convertedVboFile = new File(temporaryFolder.getRoot(), "harrys.vbo");
+        DbnToVbo.convert(dbnFile.getPath(), convertedVboFile.getPath());
+        final List<String> dataLines = readVboSections(vboFilePath).get(DATA_SECTION);
+        final List<String> convertedDataLines = readVboSections(convertedVboFile.getPath()).get(DATA_SECTION);
+        assertEquals(dataLines.stream().filter(line -> !line.isEmpty()).count(), convertedDataLines.size());
+    }
+
+    @Test
+    public void verifyMissingSectionsAreReported() throws IOException {
+        final File vboFile = temporaryFolder.newFile("no-data.vbo");
+        Files.write(vboFile.toPath(), "[header]\nsatellites\ntime\n".getBytes(StandardCharsets.US_ASCII));
+        final File dbnFile = new File(temporaryFolder.getRoot(), "no-data.dbn");
+        try {
+            VboToDbn.convert(vboFile.getPath(), dbnFile.getPath());
+            fail("Converted a vbo file without data");
+        } catch (RuntimeException e) {
+            assertTrue(e.getCause() instanceof IOException);
+        }
+        assertFalse(dbnFile.exists());
+    }
+}
@@ -0,0 +1,53 @@
+package org.sikrip.vboeditor.gui;
+
+import org.junit.Test;
+
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+import static junit.framework.Assert.fail;
+import static junit.framework.TestCase.assertEquals;
+
+/**
+ * Tests for {@link PlaybackClock}.
+ */
+public class PlaybackClockTest {
+
+    private long nanoTime = 123456789L;
+    private final PlaybackClock clock = new PlaybackClock(() -> nanoTime);
+
+    @Test
+    public void verifyTimeFollowsWallTime() {
+        clock.start(1000);
+        assertTrue(clock.isRunning());
+        // ticks of 50 ms that are always a bit late do not add up
+        for (int i = 0; i < 1000; i++) {
+            nanoTime += 50300000L;
+        }
+        assertEquals(1000 + 50300, clock.getTime());
+
+        clock.stop();
+        assertFalse(clock.isRunning());
+        nanoTime += 1000000000L;
+        assertEquals(51300, clock.getTime());
+    }
+
+    @Test
+    public void verifyRateChanges() {
+        clock.setRate(0.25);
+        clock.start(0);
+        nanoTime += 4000000000L;
+        assertEquals(1000, clock.getTime());
+
+        clock.setRate(16);
+        nanoTime += 1000000000L;
+        assertEquals(17000, clock.getTime());
+
+        try {
+            clock.setRate(32);
+            fail("Expected an IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        assertEquals(16.0, clock.getRate());
+    }
+}
@@ -0,0 +1,111 @@
+package org.sikrip.vboeditor.gui;
+
+import org.junit.Test;
+import org.sikrip.vboeditor.model.TelemetrySession;
+
+import java.awt.*;
+import java.util.Collections;
+
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+import static junit.framework.TestCase.assertEquals;
+
+/**
+ * Tests for {@link RouteProjection}.
+ */
+public class RouteProjectionTest {
+
+    @Test
+    public void verifyStraightLineIsReducedToItsEnds() {
+        final int size = 1000;
+        final double[] latitude = new double[size];
+        final double[] longitude = new double[size];
+        for (int i = 0; i < size; i++) {
+            latitude[i] = 37.9 + i * 1e-5;
+            longitude[i] = 23.7 + i * 2e-5;
+        }
+        final RouteProjection projection = new RouteProjection(createSession(latitude, longitude));
+        projection.fit(400, 300, 50);
+
+        final Polygon route = projection.simplify();
+        assertEquals(2, route.npoints);
+        // the longitude is inverted on the panel
+        assertEquals(350, route.xpoints[0]);
+        assertEquals(50, route.xpoints[1]);
+    }
+
+    @Test
+    public void verifyDenseRouteIsSimplified() {
+        // 20 laps of a circular track, 10000 samples per lap
+        final int size = 200000;
+        final double[] latitude = new double[size];
+        final double[] longitude = new double[size];
+        for (int i = 0; i < size; i++) {
+            final double angle = 2 * Math.PI * i / 10000;
+            latitude[i] = 37.9 + Math.sin(angle) * 0.01;
+            longitude[i] = 23.7 + Math.cos(angle) * 0.01;
+        }
+        final RouteProjection projection = new RouteProjection(createSession(latitude, longitude));
+        projection.fit(400, 300, 50);
+
+        final Polygon route = projection.simplify();
+        assertTrue(route.npoints > 20);
+        assertTrue(route.npoints < size / 100);
+        final Rectangle bounds = route.getBounds();
+        assertTrue(bounds.x >= 50 && bounds.x + bounds.width <= 350);
+        assertTrue(bounds.y >= 50 && bounds.y + bounds.height <= 250);
+
+        // the single positions are projected at full resolution
+        assertEquals(300, projection.getX(23.69), 1e-6);
+        assertEquals(150, projection.getY(37.9), 1e-6);
+    }
+
+    @Test
+    public void verifyExtendedRouteMatchesWholeRoute() {
+        // 4 laps of a circular track, loaded a quarter of a lap and then a lap at a time
+        final int size = 40000;
+        final double[] latitude = new double[size];
+        final double[] longitude = new double[size];
+        for (int i = 0; i < size; i++) {
+            final double angle = 2 * Math.PI * (i % 10000) / 10000;
+            latitude[i] = 37.9 + Math.sin(angle) * 0.01;
+            longitude[i] = 23.7 + Math.cos(angle) * 0.01;
+        }
+        final TelemetrySession session = createSession(latitude, longitude);
+        final RouteProjection whole = new RouteProjection(session);
+        whole.fit(400, 300, 50);
+
+        final RouteProjection extended = new RouteProjection(createSession(latitude, longitude, 2500));
+        assertEquals(2500, extended.getSize());
+        assertTrue(extended.extend(createSession(latitude, longitude, 10000)));
+        // the next laps are within the bounds of the first
+        assertFalse(extended.extend(createSession(latitude, longitude, 20000)));
+        assertFalse(extended.extend(session));
+        assertEquals(size, extended.getSize());
+        extended.fit(400, 300, 50);
+        assertEquals(whole.getX(23.69), extended.getX(23.69), 1e-9);
+        assertEquals(whole.getY(37.9), extended.getY(37.9), 1e-9);
+
+        // consecutive parts share their end points
+        final Polygon first = extended.simplify(0, 5001);
+        final Polygon second = extended.simplify(5000, size);
+        assertEquals(first.xpoints[first.npoints - 1], second.xpoints[0]);
+        assertEquals(first.ypoints[first.npoints - 1], second.ypoints[0]);
+    }
+
+    private static TelemetrySession createSession(double[] latitude, double[] longitude) {
+        return createSession(latitude, longitude, latitude.length);
+    }
+
+    /**
+     * @param size the samples loaded so far
+     */
+    private static TelemetrySession createSession(double[] latitude, double[] longitude, int size) {
+        final long[] time = new long[latitude.length];
+        for (int i = 0; i < time.length; i++) {
+            time[i] = i * 100L;
+        }
+        return new TelemetrySession(size, 100, time, latitude, longitude, new double[time.length],
+                Collections.<String, double[]>emptyMap());
+    }
+}
@@ -0,0 +1,91 @@
+package org.sikrip.vboeditor.model;
+
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static junit.framework.TestCase.assertEquals;
+
+/**
+ * Tests for {@link TelemetrySession}.
+ */
+public class TelemetrySessionTest {
+
+    // 100 ms samples around midnight with the samples of 23:59:59.800 - 23:59:59.900 missing
+    private final TelemetrySession session = new TelemetrySession(5, 100,
+            new long[]{86399500, 86399600, 86399700, 0, 100},
+            new double[]{1, 2, 3, 6, 7},
+            new double[]{-1, -2, -3, -6, -7},
+            new double[]{10, 20, 30, 60, 70},
+            Collections.<String, double[]>emptyMap());
+
+    @Test
+    public void verifyElapsedTimeCrossesMidnight() {
+        assertEquals(0, session.getElapsedTime(0));
+        assertEquals(200, session.getElapsedTime(2));
+        assertEquals(500, session.getElapsedTime(3));
+        assertEquals(600, session.getElapsedTime(4));
+    }
+
+    @Test
+    public void verifyElapsedTimeOfLongSessionCrossingMidnight() {
+        // 24 hours at 1 Hz from 10:00, the samples after midnight are more than 12 hours before the first one
+        final int size = 24 * 3600;
+        final long[] time = new long[size];
+        final double[] speed = new double[size];
+        for (int i = 0; i < size; i++) {
+            time[i] = (36000000L + i * 1000L) % 86400000L;
+            speed[i] = i;
+        }
+        final TelemetrySession day = new TelemetrySession(size, 1000, time, new double[size], new double[size], speed,
+                Collections.<String, double[]>emptyMap());
+        assertEquals(13 * 3600 * 1000L, day.getElapsedTime(13 * 3600));
+        assertEquals(14 * 3600 * 1000L, day.getElapsedTime(14 * 3600));
+        assertEquals((size - 1) * 1000L, day.getElapsedTime(size - 1));
+        assertEquals(20 * 3600, day.getSampleAt(20 * 3600 * 1000L + 500));
+        assertEquals(20 * 3600 + 0.5, day.getSpeedAt(20 * 3600 * 1000L + 500), 1e-9);
+    }
+
+    @Test
+    public void verifyElapsedTimeOfSampleBeforeFirst() {
+        // the second sample is logged 40 ms before the first one
+        final TelemetrySession glitch = new TelemetrySession(3, 100,
+                new long[]{36000000, 35999960, 36000100},
+                new double[3], new double[3], new double[3],
+                Collections.<String, double[]>emptyMap());
+        assertEquals(-40, glitch.getElapsedTime(1));
+        assertEquals(100, glitch.getElapsedTime(2));
+
+        // the same right after midnight
+        final TelemetrySession midnightGlitch = new TelemetrySession(4, 100,
+                new long[]{86399900, 0, 86399960, 100},
+                new double[4], new double[4], new double[4],
+                Collections.<String, double[]>emptyMap());
+        assertEquals(100, midnightGlitch.getElapsedTime(1));
+        assertEquals(60, midnightGlitch.getElapsedTime(2));
+        assertEquals(200, midnightGlitch.getElapsedTime(3));
+    }
+
+    @Test
+    public void verifySampleLookupUsesSampleTimes() {
+        assertEquals(0, session.getSampleAt(-50));
+        assertEquals(0, session.getSampleAt(0));
+        assertEquals(0, session.getSampleAt(99));
+        assertEquals(1, session.getSampleAt(100));
+        // within the gap
+        assertEquals(2, session.getSampleAt(450));
+        assertEquals(3, session.getSampleAt(500));
+        assertEquals(4, session.getSampleAt(10000));
+    }
+
+    @Test
+    public void verifyInterpolation() {
+        assertEquals(15.0, session.getSpeedAt(50), 1e-9);
+        assertEquals(1.5, session.getLatitudeAt(50), 1e-9);
+        assertEquals(-1.5, session.getLongitudeAt(50), 1e-9);
+        assertEquals(0.25, session.getSampleFraction(275), 1e-9);
+        assertEquals(37.5, session.getSpeedAt(275), 1e-9);
+        assertEquals(10.0, session.getSpeedAt(-100), 1e-9);
+        assertEquals(70.0, session.getSpeedAt(1000), 1e-9);
+    }
+}